@@ -20,7 +20,10 @@ import com.alipay.sofa.ark.loader.jar.JarFile;
 import com.alipay.sofa.ark.spi.archive.ContainerArchive;
 import com.alipay.sofa.ark.spi.archive.ExecutableArchive;
 import com.alipay.sofa.ark.spi.argument.CommandArgument;
+import com.alipay.sofa.ark.spi.constant.Constants;
 
+import java.io.File;
+import java.lang.management.ManagementFactory;
 import java.lang.reflect.Method;
 import java.net.URL;
 import java.util.ArrayList;
@@ -38,7 +41,9 @@ public abstract class AbstractLauncher {
      * @throws Exception if the ark container fails to launch.
      */
     public void launch(String[] args) throws Exception {
+        long start = System.currentTimeMillis();
         JarFile.registerUrlProtocolHandler();
+        checkClassDataSharing();
 
         ClassLoader classLoader = createContainerClassLoader(getContainerArchive());
 
@@ -50,6 +55,51 @@ public abstract class AbstractLauncher {
         attachArgs.addAll(Arrays.asList(args));
 
         launch(attachArgs.toArray(new String[attachArgs.size()]), getMainClass(), classLoader);
+
+        if (ClassDataSharing.isEnabled()) {
+            String message = String.format(
+                "Ark launcher started in %d ms, jvm uptime %d ms, class data sharing mode: %s.",
+                System.currentTimeMillis() - start, ManagementFactory.getRuntimeMXBean()
+                    .getUptime(), ClassDataSharing.getMode());
+            System.out.println(message); //NOPMD
+        }
+    }
+
+    /**
+     * Check the JVM option required by class data sharing mode, the CDS archive is dumped
+     * and mapped by JVM itself.
+     * @throws Exception
+     */
+    protected void checkClassDataSharing() throws Exception {
+        if (!ClassDataSharing.isEnabled()) {
+            return;
+        }
+        URL url = getExecutableArchive().getUrl();
+        if (!"file".equals(url.getProtocol())) {
+            return;
+        }
+        File archiveFile = ClassDataSharing.getArchiveFile(new File(url.toURI()));
+        String option = ClassDataSharing.getJvmOption(archiveFile);
+        if (Constants.ARK_CDS_MODE_DUMP.equals(ClassDataSharing.getMode())) {
+            File directory = archiveFile.getParentFile();
+            if (!directory.mkdirs() && !directory.isDirectory()) {
+                String message = String.format(
+                    "WARNING: failed to create CDS directory %s, the archive cannot be dumped.",
+                    directory);
+                System.err.println(message); //NOPMD
+            }
+        } else if (!archiveFile.exists()) {
+            String message = String.format(
+                "WARNING: CDS archive %s does not exist, please start with %s=%s first.",
+                archiveFile, Constants.ARK_CDS_MODE, Constants.ARK_CDS_MODE_DUMP);
+            System.err.println(message); //NOPMD
+        }
+        if (!ClassDataSharing.isJvmOptionPresent(option)) {
+            String message = String.format(
+                "WARNING: class data sharing mode is %s, please start JVM with option %s.",
+                ClassDataSharing.getMode(), option);
+            System.err.println(message); //NOPMD
+        }
     }
 
     /**
@@ -0,0 +1,126 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alipay.sofa.ark.bootstrap;
+
+import com.alipay.sofa.ark.common.util.EnvironmentUtils;
+import com.alipay.sofa.ark.spi.constant.Constants;
+
+import java.io.File;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.Charset;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+/**
+ * Support of class data sharing for the ark container, plugin and biz classloaders.
+ * <p>
+ * A dynamic CDS archive only covers classes of custom classloaders when they are loaded
+ * from jar files on disk, so in {@literal dump} and {@literal share} mode nested jars are
+ * unpacked to the {@link UnpackCache}, whose hash addressed paths stay the same across
+ * restarts of the same executable jar.
+ * The archive itself is dumped and mapped by the JVM, which must be started with the
+ * option returned by {@link #getJvmOption(File)}.
+ *
+ * @author agent
+ * @since 0.6.0
+ */
+public class ClassDataSharing {
+
+    private static final String DUMP_OPTION         = "-XX:ArchiveClassesAtExit=";
+
+    private static final String SHARE_OPTION        = "-XX:SharedArchiveFile=";
+
+    private static final String ARCHIVE_FILE_SUFFIX = ".jsa";
+
+    /**
+     * Return the class data sharing mode, {@literal dump}, {@literal share} or null if disabled
+     * @return class data sharing mode
+     */
+    public static String getMode() {
+        String mode = EnvironmentUtils.getProperty(Constants.ARK_CDS_MODE);
+        if (Constants.ARK_CDS_MODE_DUMP.equals(mode) || Constants.ARK_CDS_MODE_SHARE.equals(mode)) {
+            return mode;
+        }
+        return null;
+    }
+
+    public static boolean isEnabled() {
+        return getMode() != null;
+    }
+
+    /**
+     * Return the directory holding CDS archives
+     * @return the directory
+     */
+    public static File getDirectory() {
+        String directory = EnvironmentUtils.getProperty(Constants.ARK_CDS_DIRECTORY);
+        if (directory == null) {
+            return new File(System.getProperty("user.home"), ".sofa-ark" + File.separator + "cds");
+        }
+        return new File(directory);
+    }
+
+    /**
+     * Return the CDS archive file of the given executable jar
+     * @param executableJar the executable jar
+     * @return the archive file
+     */
+    public static File getArchiveFile(File executableJar) {
+        String key = executableJar.getAbsolutePath() + ":" + executableJar.length() + ":"
+                     + executableJar.lastModified();
+        return new File(getDirectory(), executableJar.getName() + "-" + hash(key)
+                                        + ARCHIVE_FILE_SUFFIX);
+    }
+
+    /**
+     * Return the JVM option needed by current mode
+     * @param archiveFile the archive file
+     * @return the JVM option, or null if disabled
+     */
+    public static String getJvmOption(File archiveFile) {
+        String mode = getMode();
+        if (mode == null) {
+            return null;
+        }
+        String option = Constants.ARK_CDS_MODE_DUMP.equals(mode) ? DUMP_OPTION : SHARE_OPTION;
+        return option + archiveFile.getAbsolutePath();
+    }
+
+    /**
+     * Whether the running JVM was started with the given option
+     * @param option the JVM option
+     * @return true if present
+     */
+    public static boolean isJvmOptionPresent(String option) {
+        return ManagementFactory.getRuntimeMXBean().getInputArguments().contains(option);
+    }
+
+    private static String hash(String key) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-1").digest(
+                key.getBytes(Charset.forName("UTF-8")));
+            StringBuilder sb = new StringBuilder();
+            for (int i = 0; i < 8; i++) {
+                sb.append(String.format("%02x", digest[i]));
+            }
+            return sb.toString();
+        } catch (NoSuchAlgorithmException ex) {
+            throw new IllegalStateException(ex);
+        }
+    }
+
+}
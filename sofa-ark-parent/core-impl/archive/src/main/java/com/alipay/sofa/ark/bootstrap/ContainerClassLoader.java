@@ -31,6 +31,10 @@ import java.util.Enumeration;
  */
 public class ContainerClassLoader extends URLClassLoader {
 
+    static {
+        ClassLoader.registerAsParallelCapable();
+    }
+
     public ContainerClassLoader(URL[] urls, ClassLoader parent) {
         super(urls, parent);
     }
@@ -0,0 +1,496 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alipay.sofa.ark.bootstrap;
+
+import com.alipay.sofa.ark.common.util.EnvironmentUtils;
+import com.alipay.sofa.ark.loader.jar.CentralDirectoryIndex;
+import com.alipay.sofa.ark.spi.constant.Constants;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.zip.ZipEntry;
+
+/**
+ * Cache of nested jars which must be read from jar files on disk, i.e. libraries packaged
+ * with an {@literal UNPACK:} comment, and in class data sharing or exploded mode all
+ * nested jars. Jars are unpacked into a folder named after the SHA-1 of their content, so
+ * they are shared by restarts and by every executable jar bundling the same jar instead of
+ * being unpacked again into a fresh temp folder. The SHA-1 is recorded at package time in
+ * the {@literal UNPACK:} or {@literal SHA1:} comment of the nested jar entry.
+ * <p>
+ * A jar is unpacked while holding an exclusive file lock on its folder, and only counts as
+ * unpacked once a marker file is written after the unpacked content matched its SHA-1. The
+ * marker records the size and modification time of the verified file, later uses trust a
+ * file which still matches them instead of hashing it again. A shared lock is held on the
+ * folders used by a process until it exits. If another process keeps using an invalid
+ * folder, the jar is unpacked into a private folder instead. Once per process, least
+ * recently used folders are removed until the cache fits in
+ * {@literal sofa.ark.unpack.cache.size} megabytes; folders used during the last hour or
+ * locked by any process are kept.
+ *
+ * @author agent
+ * @since 0.6.0
+ */
+public class UnpackCache {
+
+    private static final String                            UNPACK_MARKER    = "UNPACK:";
+
+    private static final String                            SHA1_MARKER      = "SHA1:";
+
+    private static final String                            LOCK_FILE_NAME   = ".lock";
+
+    private static final String                            UNPACKED_SUFFIX  = ".unpacked";
+
+    private static final int                               BUFFER_SIZE      = 32 * 1024;
+
+    private static final int                               LOCK_ATTEMPTS    = 3;
+
+    private static final long                              MIN_EVICTION_AGE = TimeUnit.HOURS
+                                                                                .toMillis(1);
+
+    /**
+     * Shared locks on the folders used by this process, never released
+     */
+    private static final ConcurrentHashMap<File, FileLock> heldLocks        = new ConcurrentHashMap<>();
+
+    /**
+     * Unpacked files verified by this process, keyed by their hash addressed file
+     */
+    private static final ConcurrentHashMap<File, File>     unpackedFiles    = new ConcurrentHashMap<>();
+
+    private static final ConcurrentHashMap<File, Object>   folderMutexes    = new ConcurrentHashMap<>();
+
+    private static final AtomicBoolean                     evicted          = new AtomicBoolean();
+
+    /**
+     * Return the directory holding unpacked jars
+     * @return the directory
+     */
+    public static File getDirectory() {
+        String directory = EnvironmentUtils.getProperty(Constants.ARK_UNPACK_DIRECTORY);
+        if (directory == null) {
+            return new File(System.getProperty("java.io.tmpdir"), "sofa-ark-libs");
+        }
+        return new File(directory);
+    }
+
+    /**
+     * Return the maximum size of the cache
+     * @return size in bytes
+     */
+    public static long getMaxSize() {
+        return Long.parseLong(EnvironmentUtils.getProperty(Constants.ARK_UNPACK_CACHE_SIZE,
+            String.valueOf(Constants.DEFAULT_ARK_UNPACK_CACHE_SIZE))) * 1024 * 1024;
+    }
+
+    /**
+     * Whether exploded mode is enabled, in which every nested jar with a SHA-1 recorded at
+     * package time is read from this cache as a plain file
+     * @return true if enabled
+     */
+    public static boolean isExplodedModeEnabled() {
+        return Boolean.parseBoolean(EnvironmentUtils
+            .getProperty(Constants.ARK_EXPLODED_MODE_ENABLE));
+    }
+
+    /**
+     * Return the SHA-1 recorded at package time in the {@literal UNPACK:} or
+     * {@literal SHA1:} comment of the given entry
+     * @param entry the nested jar entry
+     * @return the lower case SHA-1, or null if the comment holds none
+     */
+    public static String getRecordedSha1(ZipEntry entry) {
+        String comment = entry.getComment();
+        String sha1 = null;
+        if (comment != null && comment.startsWith(UNPACK_MARKER)) {
+            sha1 = comment.substring(UNPACK_MARKER.length());
+        } else if (comment != null && comment.startsWith(SHA1_MARKER)) {
+            sha1 = comment.substring(SHA1_MARKER.length());
+        }
+        // the key names a folder, anything but a hex digest must be computed instead
+        if (sha1 != null && sha1.matches("[0-9a-fA-F]{40}")) {
+            return sha1.toLowerCase();
+        }
+        return null;
+    }
+
+    /**
+     * Return the hash addressed file of the given nested jar entry
+     * @param entry the nested jar entry
+     * @param sha1 SHA-1 of the entry content
+     * @return the unpacked file, which may not exist yet
+     */
+    public static File getUnpackedFile(ZipEntry entry, String sha1) {
+        String name = entry.getName();
+        if (name.lastIndexOf('/') != -1) {
+            name = name.substring(name.lastIndexOf('/') + 1);
+        }
+        return new File(new File(getDirectory(), sha1), name);
+    }
+
+    /**
+     * Whether the given nested jar entry is unpacked and verified by this process already
+     * @param entry the nested jar entry
+     * @param sha1 SHA-1 of the entry content
+     * @return true if unpacked
+     */
+    public static boolean isUnpacked(ZipEntry entry, String sha1) {
+        return unpackedFiles.containsKey(getUnpackedFile(entry, sha1));
+    }
+
+    /**
+     * Return the unpacked file of the given nested jar entry, unpacking it first if needed
+     * @param entry the nested jar entry
+     * @param sha1 SHA-1 of the entry content
+     * @param verify whether to verify the SHA-1 of a newly unpacked file, which is not
+     *               needed if the SHA-1 has just been computed from the entry itself
+     * @param unpacker writes the entry to the file, it must rename the file into place
+     * @return the unpacked file
+     * @throws IOException if the entry cannot be unpacked
+     */
+    public static File unpack(ZipEntry entry, String sha1, boolean verify, Unpacker unpacker)
+                                                                                             throws IOException {
+        File file = getUnpackedFile(entry, sha1);
+        File unpackedFile = unpackedFiles.get(file);
+        if (unpackedFile != null) {
+            return unpackedFile;
+        }
+        File folder = file.getParentFile();
+        // unpacked jars are addressed by their content, they need no index
+        CentralDirectoryIndex.exclude(folder.getParentFile());
+        // file locks are held by the process, threads are excluded by the mutex
+        synchronized (getMutex(folder)) {
+            unpackedFile = unpackedFiles.get(file);
+            if (unpackedFile != null) {
+                return unpackedFile;
+            }
+            boolean unpacked = false;
+            for (int i = 0; i < LOCK_ATTEMPTS; i++) {
+                // waits for another process unpacking into the folder
+                lockShared(folder);
+                if (unpacked || isValid(file, entry)) {
+                    unpackedFiles.put(file, file);
+                    return file;
+                }
+                releaseShared(folder);
+                // the exclusive lock is refused while another process uses the folder
+                unpacked = unpackExclusively(file, entry, sha1, verify, unpacker);
+            }
+            unpackedFile = unpackPrivately(file, entry, sha1, verify, unpacker);
+            unpackedFiles.put(file, unpackedFile);
+            return unpackedFile;
+        }
+    }
+
+    private static boolean unpackExclusively(File file, ZipEntry entry, String sha1,
+                                             boolean verify, Unpacker unpacker) throws IOException {
+        File folder = file.getParentFile();
+        RandomAccessFile lockFile = new RandomAccessFile(new File(folder, LOCK_FILE_NAME), "rw");
+        try {
+            FileLock lock = tryLock(lockFile.getChannel(), false);
+            if (lock == null) {
+                return false;
+            }
+            try {
+                // another process may have unpacked it before the lock was taken
+                if (isValid(file, entry)) {
+                    return true;
+                }
+                File marker = getMarker(file);
+                if (marker.exists() && !marker.delete()) {
+                    throw new IOException("Failed to delete '" + marker + "'");
+                }
+                unpackVerified(file, entry, sha1, verify, unpacker);
+                writeMarker(file);
+                // not evicted by another process between the exclusive and the shared lock
+                folder.setLastModified(System.currentTimeMillis());
+                return true;
+            } finally {
+                lock.release();
+            }
+        } finally {
+            lockFile.close();
+        }
+    }
+
+    /**
+     * Unpack into a folder of this process only, used when another process keeps using
+     * the shared folder while its content is invalid. The folder is shared locked like
+     * any used folder, so that it is evicted once this process has exited.
+     */
+    private static File unpackPrivately(File file, ZipEntry entry, String sha1, boolean verify,
+                                        Unpacker unpacker) throws IOException {
+        File folder = Files.createTempDirectory(getDirectory().toPath(), sha1 + "-").toFile();
+        lockShared(folder);
+        File privateFile = new File(folder, file.getName());
+        unpackVerified(privateFile, entry, sha1, verify, unpacker);
+        return privateFile;
+    }
+
+    private static void unpackVerified(File file, ZipEntry entry, String sha1, boolean verify,
+                                       Unpacker unpacker) throws IOException {
+        unpacker.unpack(entry, file);
+        if (file.length() != entry.getSize()) {
+            throw new IOException("Size mismatch of unpacked '" + entry.getName() + "'");
+        }
+        if (verify && !sha1.equals(sha1(file))) {
+            throw new IOException("SHA-1 mismatch of unpacked '" + entry.getName() + "'");
+        }
+    }
+
+    private static void lockShared(File folder) throws IOException {
+        if (heldLocks.containsKey(folder)) {
+            return;
+        }
+        if (!folder.mkdirs() && !folder.isDirectory()) {
+            throw new IOException("Failed to create unpack folder '" + folder + "'");
+        }
+        RandomAccessFile lockFile = new RandomAccessFile(new File(folder, LOCK_FILE_NAME), "rw");
+        try {
+            heldLocks.put(folder, lockFile.getChannel().lock(0, Long.MAX_VALUE, true));
+        } catch (IOException ex) {
+            lockFile.close();
+            throw ex;
+        }
+        folder.setLastModified(System.currentTimeMillis());
+    }
+
+    private static void releaseShared(File folder) throws IOException {
+        FileLock lock = heldLocks.remove(folder);
+        if (lock != null) {
+            lock.release();
+            lock.channel().close();
+        }
+    }
+
+    /**
+     * Whether the file is unpacked and verified, and not changed since
+     */
+    private static boolean isValid(File file, ZipEntry entry) throws IOException {
+        File marker = getMarker(file);
+        if (!file.isFile() || !marker.isFile() || file.length() != entry.getSize()) {
+            return false;
+        }
+        byte[] content = Files.readAllBytes(marker.toPath());
+        return getMarkerContent(file).equals(new String(content, StandardCharsets.UTF_8));
+    }
+
+    private static void writeMarker(File file) throws IOException {
+        File marker = getMarker(file);
+        if (!marker.createNewFile()) {
+            throw new IOException("Failed to create '" + marker + "'");
+        }
+        Files.write(marker.toPath(), getMarkerContent(file).getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static String getMarkerContent(File file) {
+        return file.length() + ":" + file.lastModified();
+    }
+
+    private static File getMarker(File file) {
+        return new File(file.getParentFile(), file.getName() + UNPACKED_SUFFIX);
+    }
+
+    /**
+     * Evict least recently used folders, only the first call of a process takes effect so
+     * that it should be made once the jars of the first archive have been unpacked
+     */
+    public static void evictIfNecessary() {
+        if (evicted.compareAndSet(false, true)) {
+            evict(getDirectory(), getMaxSize());
+        }
+    }
+
+    /**
+     * Remove least recently used folders until the cache fits in the given size
+     * @param directory the cache directory
+     * @param maxSize size in bytes
+     */
+    static void evict(File directory, long maxSize) {
+        File[] files = directory.listFiles();
+        if (files == null) {
+            return;
+        }
+        List<File> folders = new ArrayList<>();
+        long size = 0;
+        for (File file : files) {
+            if (file.isDirectory()) {
+                folders.add(file);
+                size += getSize(file);
+            }
+        }
+        if (size <= maxSize) {
+            return;
+        }
+        Collections.sort(folders, new Comparator<File>() {
+            @Override
+            public int compare(File o1, File o2) {
+                return Long.compare(o1.lastModified(), o2.lastModified());
+            }
+        });
+        long now = System.currentTimeMillis();
+        for (File folder : folders) {
+            if (size <= maxSize) {
+                return;
+            }
+            if (now - folder.lastModified() < MIN_EVICTION_AGE) {
+                continue;
+            }
+            long folderSize = getSize(folder);
+            if (delete(folder)) {
+                size -= folderSize;
+            }
+        }
+    }
+
+    /**
+     * Delete the given folder unless a process, this one included, holds a lock on it
+     */
+    private static boolean delete(File folder) {
+        synchronized (getMutex(folder)) {
+            if (heldLocks.containsKey(folder)) {
+                return false;
+            }
+            File lock = new File(folder, LOCK_FILE_NAME);
+            try {
+                RandomAccessFile lockFile = new RandomAccessFile(lock, "rw");
+                try {
+                    FileLock fileLock = tryLock(lockFile.getChannel(), false);
+                    if (fileLock == null) {
+                        return false;
+                    }
+                    try {
+                        File[] files = folder.listFiles();
+                        if (files != null) {
+                            for (File file : files) {
+                                if (!file.equals(lock)) {
+                                    file.delete();
+                                }
+                            }
+                        }
+                        lock.delete();
+                    } finally {
+                        fileLock.release();
+                    }
+                } finally {
+                    lockFile.close();
+                }
+            } catch (IOException ex) {
+                return false;
+            }
+            return folder.delete();
+        }
+    }
+
+    private static FileLock tryLock(FileChannel channel, boolean shared) throws IOException {
+        try {
+            return channel.tryLock(0, Long.MAX_VALUE, shared);
+        } catch (OverlappingFileLockException ex) {
+            return null;
+        }
+    }
+
+    private static long getSize(File folder) {
+        long size = 0;
+        File[] files = folder.listFiles();
+        if (files != null) {
+            for (File file : files) {
+                size += file.length();
+            }
+        }
+        return size;
+    }
+
+    /**
+     * Return the lower case SHA-1 of the given stream, which is read to the end
+     * @param inputStream the stream
+     * @return the SHA-1
+     * @throws IOException if the stream cannot be read
+     */
+    public static String sha1(InputStream inputStream) throws IOException {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-1");
+        } catch (NoSuchAlgorithmException ex) {
+            throw new IllegalStateException(ex);
+        }
+        byte[] buffer = new byte[BUFFER_SIZE];
+        int bytesRead;
+        while ((bytesRead = inputStream.read(buffer)) != -1) {
+            digest.update(buffer, 0, bytesRead);
+        }
+        StringBuilder sb = new StringBuilder();
+        for (byte b : digest.digest()) {
+            sb.append(String.format("%02x", b));
+        }
+        return sb.toString();
+    }
+
+    private static String sha1(File file) throws IOException {
+        InputStream inputStream = new FileInputStream(file);
+        try {
+            return sha1(inputStream);
+        } finally {
+            inputStream.close();
+        }
+    }
+
+    private static Object getMutex(File folder) {
+        Object mutex = folderMutexes.get(folder);
+        if (mutex == null) {
+            Object newMutex = new Object();
+            mutex = folderMutexes.putIfAbsent(folder, newMutex);
+            if (mutex == null) {
+                mutex = newMutex;
+            }
+        }
+        return mutex;
+    }
+
+    /**
+     * Writes a nested jar entry to a file
+     */
+    public interface Unpacker {
+
+        /**
+         * Unpack the entry
+         * @param entry the nested jar entry
+         * @param file the target file
+         * @throws IOException if the entry cannot be unpacked
+         */
+        void unpack(ZipEntry entry, File file) throws IOException;
+
+    }
+
+}
@@ -0,0 +1,152 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alipay.sofa.ark.loader;
+
+import com.alipay.sofa.ark.spi.archive.Archive;
+import com.alipay.sofa.ark.spi.archive.Archive.Entry;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Layout of an ark archive, built in a single pass over its entries. Container, biz and
+ * plugin entries of an executable fat jar, and lib and conf entries of a plugin or biz
+ * jar, are classified in the order of the entries, so that looking them up no longer
+ * iterates every entry of the archive again.
+ *
+ * @author agent
+ * @since 0.6.0
+ */
+public class ArchiveLayoutIndex {
+
+    public static final String SOFA_ARK_CONTAINER = "SOFA-ARK/container/";
+
+    public static final String SOFA_ARK_BIZ       = "SOFA-ARK/biz/";
+
+    public static final String SOFA_ARK_PLUGIN    = "SOFA-ARK/plugin/";
+
+    public static final String LIB                = "lib/";
+
+    public static final String CONF               = "conf/";
+
+    private Entry              containerEntry;
+
+    private final List<Entry>  bizEntries         = new ArrayList<>();
+
+    private final List<Entry>  pluginEntries      = new ArrayList<>();
+
+    private final List<Entry>  libEntries         = new ArrayList<>();
+
+    private final List<Entry>  confEntries        = new ArrayList<>();
+
+    private final Set<String>  fileNames;
+
+    public ArchiveLayoutIndex(Archive archive) {
+        this(archive, false);
+    }
+
+    /**
+     * Build the layout of the archive
+     * @param archive the archive
+     * @param indexFileNames whether to keep the names of all file entries, so that
+     *                       {@link #isFileExist(String)} can be answered. Only worth it
+     *                       for small archives such as plugins, not for the fat jar
+     */
+    public ArchiveLayoutIndex(Archive archive, boolean indexFileNames) {
+        this.fileNames = indexFileNames ? new HashSet<String>() : null;
+        for (Entry entry : archive) {
+            String name = entry.getName();
+            if (indexFileNames && !entry.isDirectory()) {
+                fileNames.add(name);
+            }
+            if (name.equals(SOFA_ARK_CONTAINER)) {
+                if (containerEntry == null) {
+                    containerEntry = entry;
+                }
+            } else if (isNested(name, SOFA_ARK_BIZ)) {
+                bizEntries.add(entry);
+            } else if (isNested(name, SOFA_ARK_PLUGIN)) {
+                pluginEntries.add(entry);
+            } else if (isNested(name, LIB)) {
+                libEntries.add(entry);
+            } else if (isNested(name, CONF)) {
+                confEntries.add(entry);
+            }
+        }
+    }
+
+    private static boolean isNested(String name, String directory) {
+        return name.length() > directory.length() && name.startsWith(directory);
+    }
+
+    /**
+     * Return the {@literal SOFA-ARK/container/} entry
+     * @return the container entry, or null if absent
+     */
+    public Entry getContainerEntry() {
+        return containerEntry;
+    }
+
+    /**
+     * Return entries under {@literal SOFA-ARK/biz/}
+     * @return biz entries
+     */
+    public List<Entry> getBizEntries() {
+        return Collections.unmodifiableList(bizEntries);
+    }
+
+    /**
+     * Return entries under {@literal SOFA-ARK/plugin/}
+     * @return plugin entries
+     */
+    public List<Entry> getPluginEntries() {
+        return Collections.unmodifiableList(pluginEntries);
+    }
+
+    /**
+     * Return entries under {@literal lib/}
+     * @return lib entries
+     */
+    public List<Entry> getLibEntries() {
+        return Collections.unmodifiableList(libEntries);
+    }
+
+    /**
+     * Return entries under {@literal conf/}
+     * @return conf entries
+     */
+    public List<Entry> getConfEntries() {
+        return Collections.unmodifiableList(confEntries);
+    }
+
+    /**
+     * Whether a file entry, i.e. not a directory, of the given name exists
+     * @param name entry name
+     * @return true if exists
+     * @throws IllegalStateException if the index is built without file names
+     */
+    public boolean isFileExist(String name) {
+        if (fileNames == null) {
+            throw new IllegalStateException("File names of the archive are not indexed");
+        }
+        return fileNames.contains(name);
+    }
+
+}
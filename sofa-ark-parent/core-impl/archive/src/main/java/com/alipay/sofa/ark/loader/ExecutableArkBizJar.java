@@ -16,7 +16,10 @@
  */
 package com.alipay.sofa.ark.loader;
 
+import com.alipay.sofa.ark.common.thread.CommonThreadPool;
+import com.alipay.sofa.ark.common.util.EnvironmentUtils;
 import com.alipay.sofa.ark.spi.archive.*;
+import com.alipay.sofa.ark.spi.constant.Constants;
 
 import java.io.IOException;
 import java.io.InputStream;
@@ -26,6 +29,10 @@ import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Iterator;
 import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadPoolExecutor;
 import java.util.jar.Manifest;
 import java.util.zip.ZipEntry;
 
@@ -37,15 +44,17 @@ import java.util.zip.ZipEntry;
  */
 public class ExecutableArkBizJar implements ExecutableArchive {
 
-    public final String  SOFA_ARK_CONTAINER = "SOFA-ARK/container/";
+    public final String        SOFA_ARK_CONTAINER = ArchiveLayoutIndex.SOFA_ARK_CONTAINER;
 
-    public final String  SOFA_ARK_MODULE    = "SOFA-ARK/biz/";
+    public final String        SOFA_ARK_MODULE    = ArchiveLayoutIndex.SOFA_ARK_BIZ;
 
-    public final String  SOFA_ARK_PLUGIN    = "SOFA-ARK/plugin/";
+    public final String        SOFA_ARK_PLUGIN    = ArchiveLayoutIndex.SOFA_ARK_PLUGIN;
 
-    public final Archive archive;
+    public final Archive       archive;
 
-    public final URL     url;
+    public final URL           url;
+
+    private ArchiveLayoutIndex layoutIndex;
 
     public ExecutableArkBizJar(Archive archive) {
         this(archive, null);
@@ -66,17 +75,109 @@ public class ExecutableArkBizJar implements ExecutableArchive {
         return archive.getManifest();
     }
 
+    /**
+     * Return nested archives matching the given filter, in the order of their entries. In
+     * parallel mode, i.e. {@literal sofa.ark.archive.parallel.open.enable} is set, the nested
+     * archives are opened concurrently, each parsing its own central directory.
+     * @param filter the filter used to limit entries
+     * @return nested archives
+     * @throws IOException if nested archives cannot be read
+     */
     @Override
     public List<Archive> getNestedArchives(EntryFilter filter) throws IOException {
-        List<Archive> nestedArchives = new ArrayList<>();
+        List<Entry> entries = new ArrayList<>();
         for (Entry entry : this) {
             if (filter.matches(entry)) {
-                nestedArchives.add(getNestedArchive(entry));
+                entries.add(entry);
             }
         }
+        return openNestedArchives(entries);
+    }
+
+    private List<Archive> openNestedArchives(List<Entry> entries) throws IOException {
+        int threads = getParallelOpenThreads(entries.size());
+        List<Archive> nestedArchives = (threads > 1) ? getNestedArchives(entries, threads)
+            : getNestedArchives(entries);
         return Collections.unmodifiableList(nestedArchives);
     }
 
+    /**
+     * Return the layout of the fat jar, built on first use so that the container, biz and
+     * plugin archives are all looked up with a single pass over its entries
+     * @return the layout index
+     */
+    public synchronized ArchiveLayoutIndex getLayoutIndex() {
+        if (layoutIndex == null) {
+            layoutIndex = new ArchiveLayoutIndex(this.archive);
+        }
+        return layoutIndex;
+    }
+
+    private List<Archive> getNestedArchives(List<Entry> entries) throws IOException {
+        List<Archive> nestedArchives = new ArrayList<>();
+        for (Entry entry : entries) {
+            nestedArchives.add(getNestedArchive(entry));
+        }
+        return nestedArchives;
+    }
+
+    private List<Archive> getNestedArchives(List<Entry> entries, int threads) throws IOException {
+        ThreadPoolExecutor executor = new CommonThreadPool().setCorePoolSize(threads)
+            .setMaximumPoolSize(threads).setQueueSize(-1).setDaemon(true)
+            .setThreadPoolName("ark-archive-open").getExecutor();
+        try {
+            List<Future<Archive>> futures = new ArrayList<>();
+            for (final Entry entry : entries) {
+                futures.add(executor.submit(new Callable<Archive>() {
+                    @Override
+                    public Archive call() throws Exception {
+                        return getNestedArchive(entry);
+                    }
+                }));
+            }
+            List<Archive> nestedArchives = new ArrayList<>();
+            for (Future<Archive> future : futures) {
+                nestedArchives.add(getResult(future));
+            }
+            return nestedArchives;
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private Archive getResult(Future<Archive> future) throws IOException {
+        try {
+            return future.get();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while opening nested archives", ex);
+        } catch (ExecutionException ex) {
+            Throwable cause = ex.getCause();
+            if (cause instanceof IOException) {
+                throw (IOException) cause;
+            }
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw new IllegalStateException(cause);
+        }
+    }
+
+    private int getParallelOpenThreads(int archiveCount) {
+        if (archiveCount < 2
+            || !Boolean.valueOf(EnvironmentUtils
+                .getProperty(Constants.ARCHIVE_PARALLEL_OPEN_ENABLE))) {
+            return 1;
+        }
+        int threads = Integer.parseInt(EnvironmentUtils.getProperty(
+            Constants.ARCHIVE_PARALLEL_OPEN_THREADS,
+            String.valueOf(Runtime.getRuntime().availableProcessors())));
+        return Math.min(threads, archiveCount);
+    }
+
     @Override
     public InputStream getInputStream(ZipEntry zipEntry) throws IOException {
         return this.archive.getInputStream(zipEntry);
@@ -94,18 +195,13 @@ public class ExecutableArkBizJar implements ExecutableArchive {
     @Override
     public ContainerArchive getContainerArchive() throws Exception {
 
-        List<Archive> archives = getNestedArchives(new EntryFilter() {
-            @Override
-            public boolean matches(Entry entry) {
-                return SOFA_ARK_CONTAINER.equals(entry.getName());
-            }
-        });
+        Entry containerEntry = getLayoutIndex().getContainerEntry();
 
-        if (archives.isEmpty()) {
+        if (containerEntry == null) {
             throw new RuntimeException("No ark container archive found!");
         }
 
-        return new JarContainerArchive(archives.get(0));
+        return new JarContainerArchive(getNestedArchive(containerEntry));
     }
 
     /**
@@ -115,13 +211,7 @@ public class ExecutableArkBizJar implements ExecutableArchive {
      */
     public List<BizArchive> getBizArchives() throws Exception {
 
-        List<Archive> archives = getNestedArchives(new EntryFilter() {
-            @Override
-            public boolean matches(Entry entry) {
-                return !entry.getName().equals(SOFA_ARK_MODULE)
-                       && entry.getName().startsWith(SOFA_ARK_MODULE);
-            }
-        });
+        List<Archive> archives = openNestedArchives(getLayoutIndex().getBizEntries());
 
         List<BizArchive> bizArchives = new ArrayList<>();
         for (Archive archive : archives) {
@@ -138,13 +228,7 @@ public class ExecutableArkBizJar implements ExecutableArchive {
      */
     public List<PluginArchive> getPluginArchives() throws Exception {
 
-        List<Archive> archives = this.archive.getNestedArchives(new EntryFilter() {
-            @Override
-            public boolean matches(Entry entry) {
-                return !entry.getName().equals(SOFA_ARK_PLUGIN)
-                       && entry.getName().startsWith(SOFA_ARK_PLUGIN);
-            }
-        });
+        List<Archive> archives = openNestedArchives(getLayoutIndex().getPluginEntries());
 
         List<PluginArchive> pluginArchives = new ArrayList<>();
         for (Archive archive : archives) {
@@ -24,8 +24,6 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.net.MalformedURLException;
 import java.net.URL;
-import java.util.ArrayList;
-import java.util.Collections;
 import java.util.Iterator;
 import java.util.List;
 import java.util.jar.Manifest;
@@ -59,13 +57,7 @@ public class JarBizArchive extends AbstractArchive implements BizArchive {
 
     @Override
     public List<Archive> getNestedArchives(EntryFilter filter) throws IOException {
-        List<Archive> nestedArchives = new ArrayList<>();
-        for (Entry entry : this) {
-            if (filter.matches(entry)) {
-                nestedArchives.add(getNestedArchive(entry));
-            }
-        }
-        return Collections.unmodifiableList(nestedArchives);
+        return this.archive.getNestedArchives(filter);
     }
 
     @Override
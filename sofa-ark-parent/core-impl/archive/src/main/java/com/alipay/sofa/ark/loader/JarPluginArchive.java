@@ -16,6 +16,8 @@
  */
 package com.alipay.sofa.ark.loader;
 
+import com.alipay.sofa.ark.common.util.CompactStringSet;
+import com.alipay.sofa.ark.loader.archive.JarFileArchive;
 import com.alipay.sofa.ark.spi.archive.AbstractArchive;
 import com.alipay.sofa.ark.spi.archive.Archive;
 import com.alipay.sofa.ark.spi.archive.PluginArchive;
@@ -36,7 +38,8 @@ public class JarPluginArchive extends AbstractArchive implements PluginArchive {
 
     public final Archive        archive;
 
-    private final static String SOFA_ARK_PLUGIN_LIB          = "lib/";
+    private ArchiveLayoutIndex  layoutIndex;
+
     private final static String SOFA_ARK_PLUGIN_EXPORT_INDEX = "conf/export.index";
 
     public JarPluginArchive(Archive archive) {
@@ -55,13 +58,7 @@ public class JarPluginArchive extends AbstractArchive implements PluginArchive {
 
     @Override
     public List<Archive> getNestedArchives(EntryFilter filter) throws IOException {
-        List<Archive> nestedArchives = new ArrayList<>();
-        for (Entry entry : this) {
-            if (filter.matches(entry)) {
-                nestedArchives.add(getNestedArchive(entry));
-            }
-        }
-        return Collections.unmodifiableList(nestedArchives);
+        return this.archive.getNestedArchives(filter);
     }
 
     @Override
@@ -84,13 +81,40 @@ public class JarPluginArchive extends AbstractArchive implements PluginArchive {
      * @return
      */
     public URL[] getUrls() throws IOException {
-        return getUrls(new EntryFilter() {
-            @Override
-            public boolean matches(Entry entry) {
-                return entry.getName().startsWith(SOFA_ARK_PLUGIN_LIB)
-                       && !SOFA_ARK_PLUGIN_LIB.equals(entry.getName());
+        List<Entry> libEntries = getLayoutIndex().getLibEntries();
+        List<Archive> archives;
+        if (this.archive instanceof JarFileArchive) {
+            archives = ((JarFileArchive) this.archive).getNestedArchives(libEntries);
+        } else {
+            archives = new ArrayList<>(libEntries.size());
+            for (Entry entry : libEntries) {
+                archives.add(this.archive.getNestedArchive(entry));
             }
-        });
+        }
+
+        List<URL> urls = new ArrayList<>(archives.size() + 1);
+        urls.add(getUrl());
+        for (Archive archive : archives) {
+            urls.add(archive.getUrl());
+        }
+        return urls.toArray(new URL[urls.size()]);
+    }
+
+    @Override
+    public boolean isEntryExist(String entryName) {
+        return getLayoutIndex().isFileExist(entryName);
+    }
+
+    /**
+     * Return the layout of the plugin, built on first use with a single pass over its
+     * entries
+     * @return the layout index
+     */
+    public synchronized ArchiveLayoutIndex getLayoutIndex() {
+        if (layoutIndex == null) {
+            layoutIndex = new ArchiveLayoutIndex(this.archive, true);
+        }
+        return layoutIndex;
     }
 
     public Set<String> getExportIndex() throws IOException {
@@ -99,7 +123,7 @@ public class JarPluginArchive extends AbstractArchive implements PluginArchive {
         InputStreamReader inputStreamReader = new InputStreamReader(inputStream);
         BufferedReader bufferedReader = new BufferedReader(inputStreamReader);
 
-        Set<String> exportIndex = new HashSet<>();
+        List<String> exportIndex = new ArrayList<>();
         for (String line = bufferedReader.readLine(); line != null; line = bufferedReader
             .readLine()) {
             if (!line.trim().isEmpty()) {
@@ -107,6 +131,6 @@ public class JarPluginArchive extends AbstractArchive implements PluginArchive {
             }
         }
 
-        return exportIndex;
+        return new CompactStringSet(exportIndex);
     }
 }
\ No newline at end of file
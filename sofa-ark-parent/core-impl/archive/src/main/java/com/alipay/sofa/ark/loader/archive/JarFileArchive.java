@@ -20,13 +20,24 @@ import java.io.*;
 import java.net.MalformedURLException;
 import java.net.URL;
 import java.util.*;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadPoolExecutor;
 import java.util.jar.JarEntry;
 import java.util.jar.Manifest;
+import java.util.zip.CRC32;
 import java.util.zip.ZipEntry;
 
+import com.alipay.sofa.ark.bootstrap.ClassDataSharing;
+import com.alipay.sofa.ark.bootstrap.UnpackCache;
+import com.alipay.sofa.ark.common.thread.CommonThreadPool;
+import com.alipay.sofa.ark.common.util.EnvironmentUtils;
 import com.alipay.sofa.ark.loader.jar.JarFile;
 import com.alipay.sofa.ark.loader.data.RandomAccessData.ResourceAccess;
 import com.alipay.sofa.ark.spi.archive.Archive;
+import com.alipay.sofa.ark.spi.constant.Constants;
 
 /**
  * {@link Archive} implementation backed by a {@link JarFile}.
@@ -36,15 +47,18 @@ import com.alipay.sofa.ark.spi.archive.Archive;
  */
 public class JarFileArchive implements Archive {
 
-    private static final String UNPACK_MARKER = "UNPACK:";
+    private static final String       UNPACK_MARKER = "UNPACK:";
 
-    private static final int    BUFFER_SIZE   = 32 * 1024;
+    private static final int          BUFFER_SIZE   = 32 * 1024;
 
-    private final JarFile       jarFile;
+    private final JarFile             jarFile;
 
-    private URL                 url;
+    private URL                       url;
 
-    private File                tempUnpackFolder;
+    /**
+     * SHA-1 of nested jars computed from their content, when not recorded at package time
+     */
+    private final Map<String, String> entrySha1s    = new ConcurrentHashMap<>();
 
     public JarFileArchive(File file) throws IOException {
         this(file, null);
@@ -72,14 +86,54 @@ public class JarFileArchive implements Archive {
         return this.jarFile.getManifest();
     }
 
+    /**
+     * Return nested archives matching the given filter. Nested jars which are marked
+     * UNPACK, or all of them in class data sharing mode, and not in the {@link UnpackCache}
+     * yet are unpacked concurrently first, using up to
+     * {@literal sofa.ark.archive.parallel.open.threads} threads.
+     * @param filter the filter used to limit entries
+     * @return nested archives
+     * @throws IOException if nested archives cannot be read
+     */
     @Override
     public List<Archive> getNestedArchives(EntryFilter filter) throws IOException {
-        List<Archive> nestedArchives = new ArrayList<>();
+        List<Entry> entries = new ArrayList<>();
         for (Entry entry : this) {
             if (filter.matches(entry)) {
-                nestedArchives.add(getNestedArchive(entry));
+                entries.add(entry);
+            }
+        }
+        return getNestedArchives(entries);
+    }
+
+    /**
+     * Return nested archives of the given entries of this archive, unpacking them the same
+     * way as {@link #getNestedArchives(EntryFilter)}
+     * @param entries entries of this archive
+     * @return nested archives
+     * @throws IOException if nested archives cannot be read
+     */
+    public List<Archive> getNestedArchives(List<Entry> entries) throws IOException {
+        List<JarEntry> pendingUnpacks = new ArrayList<>();
+        boolean classDataSharing = ClassDataSharing.isEnabled();
+        boolean exploded = UnpackCache.isExplodedModeEnabled();
+        for (Entry entry : entries) {
+            JarEntry jarEntry = ((JarFileEntry) entry).getJarEntry();
+            if (isUnpackRequired(jarEntry, classDataSharing, exploded)) {
+                String sha1 = UnpackCache.getRecordedSha1(jarEntry);
+                if (sha1 == null || !UnpackCache.isUnpacked(jarEntry, sha1)) {
+                    pendingUnpacks.add(jarEntry);
+                }
             }
         }
+        unpackConcurrently(pendingUnpacks);
+        List<Archive> nestedArchives = new ArrayList<>();
+        for (Entry entry : entries) {
+            nestedArchives.add(getNestedArchive(entry));
+        }
+        if (!pendingUnpacks.isEmpty()) {
+            UnpackCache.evictIfNecessary();
+        }
         return Collections.unmodifiableList(nestedArchives);
     }
 
@@ -95,8 +149,10 @@ public class JarFileArchive implements Archive {
 
     public Archive getNestedArchive(Entry entry) throws IOException {
         JarEntry jarEntry = ((JarFileEntry) entry).getJarEntry();
-        if (jarEntry.getComment() != null && jarEntry.getComment().startsWith(UNPACK_MARKER)) {
-            return getUnpackedNestedArchive(jarEntry);
+        if (isUnpackRequired(jarEntry, ClassDataSharing.isEnabled(),
+            UnpackCache.isExplodedModeEnabled())) {
+            File file = getUnpackedFile(jarEntry);
+            return new JarFileArchive(file, file.toURI().toURL());
         }
         try {
             JarFile jarFile = this.jarFile.getNestedJarFile(jarEntry);
@@ -107,57 +163,112 @@ public class JarFileArchive implements Archive {
         }
     }
 
-    private Archive getUnpackedNestedArchive(JarEntry jarEntry) throws IOException {
-        String name = jarEntry.getName();
-        if (name.lastIndexOf("/") != -1) {
-            name = name.substring(name.lastIndexOf("/") + 1);
+    private File getUnpackedFile(JarEntry jarEntry) throws IOException {
+        // a SHA-1 computed from the entry itself needs no verification after unpacking
+        boolean recorded = UnpackCache.getRecordedSha1(jarEntry) != null;
+        return UnpackCache.unpack(jarEntry, getSha1(jarEntry), recorded, new NestedJarUnpacker());
+    }
+
+    private String getSha1(JarEntry jarEntry) throws IOException {
+        String sha1 = UnpackCache.getRecordedSha1(jarEntry);
+        if (sha1 == null) {
+            sha1 = this.entrySha1s.get(jarEntry.getName());
         }
-        File file = new File(getTempUnpackFolder(), name);
-        if (!file.exists() || file.length() != jarEntry.getSize()) {
-            unpack(jarEntry, file);
+        if (sha1 == null) {
+            InputStream inputStream = this.jarFile.getInputStream(jarEntry, ResourceAccess.ONCE);
+            try {
+                sha1 = UnpackCache.sha1(inputStream);
+            } finally {
+                inputStream.close();
+            }
+            this.entrySha1s.put(jarEntry.getName(), sha1);
         }
-        return new JarFileArchive(file, file.toURI().toURL());
+        return sha1;
     }
 
-    private File getTempUnpackFolder() {
-        if (this.tempUnpackFolder == null) {
-            File tempFolder = new File(System.getProperty("java.io.tmpdir"));
-            this.tempUnpackFolder = createUnpackFolder(tempFolder);
-        }
-        return this.tempUnpackFolder;
+    /**
+     * Whether the nested jar must be read from a file on disk, either because it is marked
+     * UNPACK or because class data sharing only applies to classes loaded from such files,
+     * which keep the same path across restarts in the {@link UnpackCache}. In exploded mode
+     * every nested jar packaged with a SHA-1 is read from the {@link UnpackCache} as well,
+     * jars packaged without one stay nested instead of being hashed on every start.
+     */
+    private boolean isUnpackRequired(JarEntry jarEntry, boolean classDataSharing, boolean exploded) {
+        return !jarEntry.isDirectory()
+               && (classDataSharing
+                   || (jarEntry.getComment() != null && jarEntry.getComment().startsWith(
+                       UNPACK_MARKER)) || (exploded && UnpackCache.getRecordedSha1(jarEntry) != null));
     }
 
-    private File createUnpackFolder(File parent) {
-        int attempts = 0;
-        while (attempts++ < 1000) {
-            String fileName = new File(this.jarFile.getName()).getName();
-            File unpackFolder = new File(parent, fileName + "-spring-boot-libs-"
-                                                 + UUID.randomUUID());
-            if (unpackFolder.mkdirs()) {
-                return unpackFolder;
+    private void unpackConcurrently(List<JarEntry> jarEntries) throws IOException {
+        int threads = Math.min(Integer.parseInt(EnvironmentUtils.getProperty(
+            Constants.ARCHIVE_PARALLEL_OPEN_THREADS,
+            String.valueOf(Runtime.getRuntime().availableProcessors()))), jarEntries.size());
+        if (threads < 2) {
+            return;
+        }
+        ThreadPoolExecutor executor = new CommonThreadPool().setCorePoolSize(threads)
+            .setMaximumPoolSize(threads).setQueueSize(-1).setDaemon(true)
+            .setThreadPoolName("ark-archive-unpack").getExecutor();
+        try {
+            List<Future<File>> futures = new ArrayList<>();
+            for (final JarEntry jarEntry : jarEntries) {
+                futures.add(executor.submit(new Callable<File>() {
+                    @Override
+                    public File call() throws Exception {
+                        return getUnpackedFile(jarEntry);
+                    }
+                }));
             }
+            for (Future<File> future : futures) {
+                try {
+                    future.get();
+                } catch (InterruptedException ex) {
+                    Thread.currentThread().interrupt();
+                    throw new IOException("Interrupted while unpacking nested jars", ex);
+                } catch (ExecutionException ex) {
+                    // unpacked again by the caller, which reports the failure
+                }
+            }
+        } finally {
+            executor.shutdownNow();
         }
-        throw new IllegalStateException("Failed to create unpack folder in directory '" + parent
-                                        + "'");
     }
 
     private void unpack(JarEntry entry, File file) throws IOException {
+        // unpack to a temp file first, the stable unpack folder may be shared by processes
+        File tempFile = new File(file.getParentFile(), file.getName() + "." + UUID.randomUUID()
+                                                       + ".tmp");
         InputStream inputStream = this.jarFile.getInputStream(entry, ResourceAccess.ONCE);
         try {
-            OutputStream outputStream = new FileOutputStream(file);
+            OutputStream outputStream = new FileOutputStream(tempFile);
             try {
                 byte[] buffer = new byte[BUFFER_SIZE];
+                CRC32 crc = new CRC32();
                 int bytesRead;
                 while ((bytesRead = inputStream.read(buffer)) != -1) {
                     outputStream.write(buffer, 0, bytesRead);
+                    crc.update(buffer, 0, bytesRead);
                 }
                 outputStream.flush();
+                if (entry.getCrc() != -1 && crc.getValue() != entry.getCrc()) {
+                    throw new IOException("CRC mismatch of nested jar '" + entry.getName() + "'");
+                }
             } finally {
                 outputStream.close();
             }
+        } catch (IOException ex) {
+            tempFile.delete();
+            throw ex;
         } finally {
             inputStream.close();
         }
+        if (!tempFile.renameTo(file)) {
+            tempFile.delete();
+            if (!file.exists() || file.length() != entry.getSize()) {
+                throw new IOException("Failed to unpack nested jar to '" + file + "'");
+            }
+        }
     }
 
     @Override
@@ -169,6 +280,18 @@ public class JarFileArchive implements Archive {
         }
     }
 
+    /**
+     * {@link UnpackCache.Unpacker} of the nested jars of this archive.
+     */
+    private class NestedJarUnpacker implements UnpackCache.Unpacker {
+
+        @Override
+        public void unpack(ZipEntry entry, File file) throws IOException {
+            JarFileArchive.this.unpack((JarEntry) entry, file);
+        }
+
+    }
+
     /**
      * {@link Archive.Entry} iterator implementation backed by {@link JarEntry}.
      */
@@ -0,0 +1,169 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alipay.sofa.ark.loader.data;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * {@link RandomAccessData} implementation backed by read-only memory mapped regions of a
+ * file. Reads are served from the page cache without system calls or locks, and
+ * subsections, e.g. nested jars, are views of the same regions without copying.
+ * <p>
+ * Mapped regions are released by the garbage collector once no data or stream refers to
+ * them any more.
+ *
+ * @author agent
+ * @since 0.6.0
+ */
+public class MappedRandomAccessData implements RandomAccessData {
+
+    private static final int   REGION_SHIFT = 30;
+
+    private static final int   REGION_SIZE  = 1 << REGION_SHIFT;
+
+    private final ByteBuffer[] regions;
+
+    private final long         offset;
+
+    private final long         length;
+
+    /**
+     * Map the whole specified file.
+     * @param file the underlying file
+     * @throws IOException if the file cannot be mapped
+     */
+    public MappedRandomAccessData(File file) throws IOException {
+        RandomAccessFile randomAccessFile = new RandomAccessFile(file, "r");
+        try {
+            FileChannel channel = randomAccessFile.getChannel();
+            long size = channel.size();
+            this.regions = new ByteBuffer[(int) ((size + REGION_SIZE - 1) >>> REGION_SHIFT)];
+            for (int i = 0; i < this.regions.length; i++) {
+                long position = (long) i << REGION_SHIFT;
+                this.regions[i] = channel.map(FileChannel.MapMode.READ_ONLY, position,
+                    Math.min(REGION_SIZE, size - position));
+            }
+            this.offset = 0L;
+            this.length = size;
+        } finally {
+            randomAccessFile.close();
+        }
+    }
+
+    private MappedRandomAccessData(ByteBuffer[] regions, long offset, long length) {
+        this.regions = regions;
+        this.offset = offset;
+        this.length = length;
+    }
+
+    @Override
+    public InputStream getInputStream(ResourceAccess access) throws IOException {
+        return new DataInputStream();
+    }
+
+    @Override
+    public RandomAccessData getSubsection(long offset, long length) {
+        if (offset < 0 || length < 0 || offset + length > this.length) {
+            throw new IndexOutOfBoundsException();
+        }
+        return new MappedRandomAccessData(this.regions, this.offset + offset, length);
+    }
+
+    @Override
+    public long getSize() {
+        return this.length;
+    }
+
+    /**
+     * {@link InputStream} over the mapped regions, each stream reads through its own
+     * duplicates of the regions so that buffer positions are never shared.
+     */
+    private class DataInputStream extends InputStream {
+
+        private long       position;
+
+        private int        regionIndex = -1;
+
+        private ByteBuffer region;
+
+        @Override
+        public int read() throws IOException {
+            if (this.position >= MappedRandomAccessData.this.length) {
+                return -1;
+            }
+            long filePosition = MappedRandomAccessData.this.offset + this.position++;
+            return MappedRandomAccessData.this.regions[(int) (filePosition >>> REGION_SHIFT)]
+                .get((int) (filePosition & (REGION_SIZE - 1))) & 0xFF;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            if (b == null) {
+                throw new NullPointerException("Bytes must not be null");
+            }
+            if (len == 0) {
+                return 0;
+            }
+            int remaining = (int) Math.min(MappedRandomAccessData.this.length - this.position, len);
+            if (remaining <= 0) {
+                return -1;
+            }
+            int read = 0;
+            while (read < remaining) {
+                long filePosition = MappedRandomAccessData.this.offset + this.position;
+                ByteBuffer buffer = getRegion((int) (filePosition >>> REGION_SHIFT));
+                buffer.position((int) (filePosition & (REGION_SIZE - 1)));
+                int count = Math.min(remaining - read, buffer.remaining());
+                buffer.get(b, off + read, count);
+                read += count;
+                this.position += count;
+            }
+            return read;
+        }
+
+        @Override
+        public long skip(long n) {
+            if (n <= 0) {
+                return 0;
+            }
+            long skipped = Math.min(MappedRandomAccessData.this.length - this.position, n);
+            this.position += skipped;
+            return skipped;
+        }
+
+        @Override
+        public int available() {
+            return (int) Math.min(MappedRandomAccessData.this.length - this.position,
+                Integer.MAX_VALUE);
+        }
+
+        private ByteBuffer getRegion(int index) {
+            if (this.regionIndex != index) {
+                this.region = MappedRandomAccessData.this.regions[index].duplicate();
+                this.regionIndex = index;
+            }
+            return this.region;
+        }
+
+    }
+
+}
@@ -16,50 +16,45 @@
  */
 package com.alipay.sofa.ark.loader.data;
 
+import com.alipay.sofa.ark.common.util.EnvironmentUtils;
+import com.alipay.sofa.ark.spi.constant.Constants;
+
 import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.RandomAccessFile;
-import java.util.Queue;
-import java.util.concurrent.ConcurrentLinkedQueue;
-import java.util.concurrent.Semaphore;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedByInterruptException;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.FileChannel;
 
 /**
- * {@link RandomAccessData} implementation backed by a {@link RandomAccessFile}.
+ * {@link RandomAccessData} implementation backed by a {@link RandomAccessFile}. The file and
+ * all of its subsections, e.g. nested jars, read through a single shared {@link FileChannel}
+ * with positional reads, which neither seek nor lock. When
+ * {@literal sofa.ark.jar.mmap.enable} is set, reads and subsections are served by a
+ * {@link MappedRandomAccessData} of the whole file instead.
  *
  * @author Phillip Webb
  */
 public class RandomAccessDataFile implements RandomAccessData {
 
-    private static final int DEFAULT_CONCURRENT_READS = 4;
+    private final File             file;
 
-    private final File       file;
+    private final SharedChannel    channel;
 
-    private final FilePool   filePool;
+    private final long             offset;
 
-    private final long       offset;
+    private final long             length;
 
-    private final long       length;
+    private final RandomAccessData mappedData;
 
     /**
      * Create a new {@link RandomAccessDataFile} backed by the specified file.
      * @param file the underlying file
      * @throws IllegalArgumentException if the file is null or does not exist
-     * @see #RandomAccessDataFile(File, int)
      */
     public RandomAccessDataFile(File file) {
-        this(file, DEFAULT_CONCURRENT_READS);
-    }
-
-    /**
-     * Create a new {@link RandomAccessDataFile} backed by the specified file.
-     * @param file the underlying file
-     * @param concurrentReads the maximum number of concurrent reads allowed on the
-     * underlying file before blocking
-     * @throws IllegalArgumentException if the file is null or does not exist
-     * @see #RandomAccessDataFile(File)
-     */
-    public RandomAccessDataFile(File file, int concurrentReads) {
         if (file == null) {
             throw new IllegalArgumentException("File must not be null");
         }
@@ -67,23 +62,51 @@ public class RandomAccessDataFile implements RandomAccessData {
             throw new IllegalArgumentException("File must exist");
         }
         this.file = file;
-        this.filePool = new FilePool(file, concurrentReads);
+        this.channel = new SharedChannel(file);
         this.offset = 0L;
         this.length = file.length();
+        this.mappedData = isMappedEnabled() ? map(file) : null;
+    }
+
+    /**
+     * Create a new {@link RandomAccessDataFile} backed by the specified file.
+     * @param file the underlying file
+     * @param concurrentReads not used any more, positional reads are not limited
+     * @throws IllegalArgumentException if the file is null or does not exist
+     * @deprecated use {@link #RandomAccessDataFile(File)}
+     */
+    @Deprecated
+    public RandomAccessDataFile(File file, int concurrentReads) {
+        this(file);
     }
 
     /**
      * Private constructor used to create a {@link #getSubsection(long, long) subsection}.
      * @param file the underlying file
-     * @param pool the underlying pool
+     * @param channel the underlying channel
      * @param offset the offset of the section
      * @param length the length of the section
      */
-    private RandomAccessDataFile(File file, FilePool pool, long offset, long length) {
+    private RandomAccessDataFile(File file, SharedChannel channel, long offset, long length) {
         this.file = file;
-        this.filePool = pool;
+        this.channel = channel;
         this.offset = offset;
         this.length = length;
+        this.mappedData = null;
+    }
+
+    private static boolean isMappedEnabled() {
+        return Boolean.parseBoolean(EnvironmentUtils.getProperty(Constants.ARK_JAR_MMAP_ENABLE,
+            "false"));
+    }
+
+    private static RandomAccessData map(File file) {
+        try {
+            return new MappedRandomAccessData(file);
+        } catch (IOException ex) {
+            // fall back to file reads, e.g. when address space is exhausted
+            return null;
+        }
     }
 
     /**
@@ -96,7 +119,10 @@ public class RandomAccessDataFile implements RandomAccessData {
 
     @Override
     public InputStream getInputStream(ResourceAccess access) throws IOException {
-        return new DataInputStream(access);
+        if (this.mappedData != null) {
+            return this.mappedData.getInputStream(access);
+        }
+        return new DataInputStream();
     }
 
     @Override
@@ -104,7 +130,10 @@ public class RandomAccessDataFile implements RandomAccessData {
         if (offset < 0 || length < 0 || offset + length > this.length) {
             throw new IndexOutOfBoundsException();
         }
-        return new RandomAccessDataFile(this.file, this.filePool, this.offset + offset, length);
+        if (this.mappedData != null) {
+            return this.mappedData.getSubsection(offset, length);
+        }
+        return new RandomAccessDataFile(this.file, this.channel, this.offset + offset, length);
     }
 
     @Override
@@ -112,8 +141,12 @@ public class RandomAccessDataFile implements RandomAccessData {
         return this.length;
     }
 
+    /**
+     * Close the shared channel, it is reopened by the next read.
+     * @throws IOException
+     */
     public void close() throws IOException {
-        this.filePool.close();
+        this.channel.close();
     }
 
     /**
@@ -121,20 +154,13 @@ public class RandomAccessDataFile implements RandomAccessData {
      */
     private class DataInputStream extends InputStream {
 
-        private RandomAccessFile file;
-
-        private int              position;
+        private final byte[] singleByte = new byte[1];
 
-        DataInputStream(ResourceAccess access) throws IOException {
-            if (access == ResourceAccess.ONCE) {
-                this.file = new RandomAccessFile(RandomAccessDataFile.this.file, "r");
-                this.file.seek(RandomAccessDataFile.this.offset);
-            }
-        }
+        private long         position;
 
         @Override
         public int read() throws IOException {
-            return doRead(null, 0, 1);
+            return doRead(this.singleByte, 0, 1) == -1 ? -1 : this.singleByte[0] & 0xFF;
         }
 
         @Override
@@ -152,11 +178,11 @@ public class RandomAccessDataFile implements RandomAccessData {
 
         /**
          * Perform the actual read.
-         * @param b the bytes to read or {@code null} when reading a single byte
+         * @param b the bytes to read
          * @param off the offset of the byte array
          * @param len the length of data to read
-         * @return the number of bytes read into {@code b} or the actual read byte if
-         * {@code b} is {@code null}. Returns -1 when the end of the stream is reached
+         * @return the number of bytes read into {@code b}. Returns -1 when the end of the
+         * stream is reached
          * @throws IOException in case of I/O errors
          */
         public int doRead(byte[] b, int off, int len) throws IOException {
@@ -167,36 +193,22 @@ public class RandomAccessDataFile implements RandomAccessData {
             if (cappedLen <= 0) {
                 return -1;
             }
-            RandomAccessFile file = this.file;
-            try {
-                if (file == null) {
-                    file = RandomAccessDataFile.this.filePool.acquire();
-                    file.seek(RandomAccessDataFile.this.offset + this.position);
-                }
-                if (b == null) {
-                    int rtn = file.read();
-                    moveOn(rtn == -1 ? 0 : 1);
-                    return rtn;
-                } else {
-                    return (int) moveOn(file.read(b, off, cappedLen));
-                }
-            } finally {
-                if (this.file == null && file != null) {
-                    RandomAccessDataFile.this.filePool.release(file);
-                }
+            int read = RandomAccessDataFile.this.channel.read(RandomAccessDataFile.this.offset
+                                                              + this.position, b, off, cappedLen);
+            if (read > 0) {
+                this.position += read;
             }
+            return read;
         }
 
         @Override
         public long skip(long n) {
-            return (n <= 0 ? 0 : moveOn(cap(n)));
-        }
-
-        @Override
-        public void close() throws IOException {
-            if (this.file != null) {
-                this.file.close();
+            if (n <= 0) {
+                return 0;
             }
+            int skipped = cap(n);
+            this.position += skipped;
+            return skipped;
         }
 
         /**
@@ -209,63 +221,72 @@ public class RandomAccessDataFile implements RandomAccessData {
             return (int) Math.min(RandomAccessDataFile.this.length - this.position, n);
         }
 
-        /**
-         * Move the stream position forwards the specified amount.
-         * @param amount the amount to move
-         * @return the amount moved
-         */
-        private long moveOn(int amount) {
-            this.position += amount;
-            return amount;
-        }
-
     }
 
     /**
-     * Manage a pool that can be used to perform concurrent reads on the underlying
-     * {@link RandomAccessFile}.
+     * A {@link FileChannel} shared by a file and all of its subsections. Positional reads
+     * are thread-safe, so no pool is needed.
+     * <p>
+     * A {@link FileChannel} is closed once a thread blocked in it is interrupted. Reads that
+     * find the channel closed retry on a reopened one, and interrupted threads read through a
+     * temporary {@link RandomAccessFile} so that they do not close the channel for others.
      */
-    static class FilePool {
-
-        private final File                    file;
+    static class SharedChannel {
 
-        private final int                     size;
+        private final File           file;
 
-        private final Semaphore               available;
+        private volatile FileChannel channel;
 
-        private final Queue<RandomAccessFile> files;
-
-        FilePool(File file, int size) {
+        SharedChannel(File file) {
             this.file = file;
-            this.size = size;
-            this.available = new Semaphore(size);
-            this.files = new ConcurrentLinkedQueue<>();
         }
 
-        public RandomAccessFile acquire() throws IOException {
-            this.available.acquireUninterruptibly();
-            RandomAccessFile file = this.files.poll();
-            if (file != null) {
-                return file;
+        public int read(long position, byte[] b, int off, int len) throws IOException {
+            if (Thread.currentThread().isInterrupted()) {
+                return readUninterruptibly(position, b, off, len);
+            }
+            try {
+                return getChannel().read(ByteBuffer.wrap(b, off, len), position);
+            } catch (ClosedByInterruptException ex) {
+                return readUninterruptibly(position, b, off, len);
+            } catch (ClosedChannelException ex) {
+                return getChannel().read(ByteBuffer.wrap(b, off, len), position);
+            }
+        }
+
+        public void close() throws IOException {
+            FileChannel channel;
+            synchronized (this) {
+                channel = this.channel;
+                this.channel = null;
+            }
+            if (channel != null) {
+                channel.close();
             }
-            return new RandomAccessFile(this.file, "r");
         }
 
-        public void release(RandomAccessFile file) {
-            this.files.add(file);
-            this.available.release();
+        private FileChannel getChannel() throws IOException {
+            FileChannel channel = this.channel;
+            if (channel == null || !channel.isOpen()) {
+                synchronized (this) {
+                    channel = this.channel;
+                    if (channel == null || !channel.isOpen()) {
+                        channel = new RandomAccessFile(this.file, "r").getChannel();
+                        this.channel = channel;
+                    }
+                }
+            }
+            return channel;
         }
 
-        public void close() throws IOException {
-            this.available.acquireUninterruptibly(this.size);
+        private int readUninterruptibly(long position, byte[] b, int off, int len)
+                                                                                  throws IOException {
+            RandomAccessFile randomAccessFile = new RandomAccessFile(this.file, "r");
             try {
-                RandomAccessFile pooledFile = this.files.poll();
-                while (pooledFile != null) {
-                    pooledFile.close();
-                    pooledFile = this.files.poll();
-                }
+                randomAccessFile.seek(position);
+                return randomAccessFile.read(b, off, len);
             } finally {
-                this.available.release(this.size);
+                randomAccessFile.close();
             }
         }
 
@@ -19,9 +19,12 @@ package com.alipay.sofa.ark.loader.jar;
 import com.alipay.sofa.ark.loader.data.RandomAccessData;
 
 import java.io.IOException;
+import java.util.zip.CRC32;
 
 /**
- * A ZIP File "End of central directory record" (EOCD).
+ * A ZIP File "End of central directory record" (EOCD), together with the "Zip64 end of
+ * central directory record" of archives which have more than 65535 entries or whose
+ * central directory is located beyond 4GB.
  *
  * @author Phillip Webb
  * @author Andy Wilkinson
@@ -29,17 +32,25 @@ import java.io.IOException;
  */
 final public class CentralDirectoryEndRecord {
 
-    private static final int MINIMUM_SIZE           = 22;
+    private static final int MINIMUM_SIZE            = 22;
 
-    private static final int MAXIMUM_COMMENT_LENGTH = 0xFFFF;
+    private static final int MAXIMUM_COMMENT_LENGTH  = 0xFFFF;
 
-    private static final int MAXIMUM_SIZE           = MINIMUM_SIZE + MAXIMUM_COMMENT_LENGTH;
+    private static final int MAXIMUM_SIZE            = MINIMUM_SIZE + MAXIMUM_COMMENT_LENGTH;
 
-    private static final int SIGNATURE              = 0x06054b50;
+    private static final int SIGNATURE               = 0x06054b50;
 
-    private static final int COMMENT_LENGTH_OFFSET  = 20;
+    private static final int COMMENT_LENGTH_OFFSET   = 20;
 
-    private static final int READ_BLOCK_SIZE        = 256;
+    private static final int READ_BLOCK_SIZE         = 256;
+
+    private static final int ZIP64_LOCATOR_SIGNATURE = 0x07064b50;
+
+    private static final int ZIP64_LOCATOR_SIZE      = 20;
+
+    private static final int ZIP64_END_SIGNATURE     = 0x06064b50;
+
+    private static final int ZIP64_END_SIZE          = 56;
 
     private byte[]           block;
 
@@ -47,6 +58,10 @@ final public class CentralDirectoryEndRecord {
 
     private int              size;
 
+    private byte[]           zip64End;
+
+    private long             zip64EndPosition;
+
     /**
      * Create a new {@link CentralDirectoryEndRecord} instance from the specified
      * {@link RandomAccessData}, searching backwards from the end until a valid block is
@@ -69,6 +84,34 @@ final public class CentralDirectoryEndRecord {
             }
             this.offset = this.block.length - this.size;
         }
+        findZip64End(data);
+    }
+
+    private void findZip64End(RandomAccessData data) throws IOException {
+        long locatorPosition = data.getSize() - this.size - ZIP64_LOCATOR_SIZE;
+        if (locatorPosition < ZIP64_END_SIZE) {
+            return;
+        }
+        byte[] locator = Bytes.get(data.getSubsection(locatorPosition, ZIP64_LOCATOR_SIZE));
+        if (Bytes.littleEndianValue(locator, 0, 4) != ZIP64_LOCATOR_SIGNATURE) {
+            return;
+        }
+        // the record directly precedes the locator unless it has extensible data, the
+        // offset specified by the locator does not account for prefix bytes
+        long position = locatorPosition - ZIP64_END_SIZE;
+        byte[] record = Bytes.get(data.getSubsection(position, ZIP64_END_SIZE));
+        if (Bytes.littleEndianValue(record, 0, 4) != ZIP64_END_SIGNATURE) {
+            position = Bytes.littleEndianValue(locator, 8, 8);
+            if (position < 0 || position > locatorPosition - ZIP64_END_SIZE) {
+                throw new IOException("Unable to find ZIP64 end of central directory record");
+            }
+            record = Bytes.get(data.getSubsection(position, ZIP64_END_SIZE));
+            if (Bytes.littleEndianValue(record, 0, 4) != ZIP64_END_SIGNATURE) {
+                throw new IOException("Unable to find ZIP64 end of central directory record");
+            }
+        }
+        this.zip64End = record;
+        this.zip64EndPosition = position;
     }
 
     private byte[] createBlockFromEndOfData(RandomAccessData data, int size) throws IOException {
@@ -95,9 +138,10 @@ final public class CentralDirectoryEndRecord {
      * @return the offset within the data where the archive begins
      */
     public long getStartOfArchive(RandomAccessData data) {
-        long length = Bytes.littleEndianValue(this.block, this.offset + 12, 4);
-        long specifiedOffset = Bytes.littleEndianValue(this.block, this.offset + 16, 4);
-        long actualOffset = data.getSize() - this.size - length;
+        long length = getCentralDirectorySize();
+        long specifiedOffset = getCentralDirectoryOffset();
+        long actualOffset = (this.zip64End != null) ? this.zip64EndPosition - length : data
+            .getSize() - this.size - length;
         return actualOffset - specifiedOffset;
     }
 
@@ -108,9 +152,43 @@ final public class CentralDirectoryEndRecord {
      * @return the central directory data
      */
     public RandomAccessData getCentralDirectory(RandomAccessData data) {
-        long offset = Bytes.littleEndianValue(this.block, this.offset + 16, 4);
-        long length = Bytes.littleEndianValue(this.block, this.offset + 12, 4);
-        return data.getSubsection(offset, length);
+        return data.getSubsection(getCentralDirectoryOffset(), getCentralDirectorySize());
+    }
+
+    private long getCentralDirectoryOffset() {
+        if (this.zip64End != null) {
+            return Bytes.littleEndianValue(this.zip64End, 48, 8);
+        }
+        return Bytes.littleEndianValue(this.block, this.offset + 16, 4);
+    }
+
+    private long getCentralDirectorySize() {
+        if (this.zip64End != null) {
+            return Bytes.littleEndianValue(this.zip64End, 40, 8);
+        }
+        return Bytes.littleEndianValue(this.block, this.offset + 12, 4);
+    }
+
+    /**
+     * Whether this is a Zip64 archive
+     * @return true if a Zip64 end of central directory record is present
+     */
+    public boolean isZip64() {
+        return this.zip64End != null;
+    }
+
+    /**
+     * Return the CRC-32 checksum of this record, which covers the location, the size and
+     * the number of records of the central directory.
+     * @return the checksum
+     */
+    public long getChecksum() {
+        CRC32 crc = new CRC32();
+        crc.update(this.block, this.offset, this.size);
+        if (this.zip64End != null) {
+            crc.update(this.zip64End);
+        }
+        return crc.getValue();
     }
 
     /**
@@ -118,9 +196,12 @@ final public class CentralDirectoryEndRecord {
      * @return the number of records in the zip
      */
     public int getNumberOfRecords() {
-        long numberOfRecords = Bytes.littleEndianValue(this.block, this.offset + 10, 2);
-        if (numberOfRecords == 0xFFFF) {
-            throw new IllegalStateException("Zip64 archives are not supported");
+        if (this.zip64End == null) {
+            return (int) Bytes.littleEndianValue(this.block, this.offset + 10, 2);
+        }
+        long numberOfRecords = Bytes.littleEndianValue(this.zip64End, 32, 8);
+        if (numberOfRecords > Integer.MAX_VALUE) {
+            throw new IllegalStateException("Too many entries in Zip64 archive: " + numberOfRecords);
         }
         return (int) numberOfRecords;
     }
@@ -32,11 +32,19 @@ import java.util.GregorianCalendar;
 
 final public class CentralDirectoryFileHeader implements FileHeader {
 
-    private static final AsciiBytes SLASH      = new AsciiBytes("/");
+    private static final AsciiBytes SLASH         = new AsciiBytes("/");
 
-    private static final byte[]     NO_EXTRA   = {};
+    private static final int        BASE_SIZE     = 46;
 
-    private static final AsciiBytes NO_COMMENT = new AsciiBytes("");
+    private static final int        PREFETCH_SIZE = 128;
+
+    private static final long       ZIP64_MAGIC   = 0xFFFFFFFFL;
+
+    private static final int        ZIP64_EXTRA   = 0x0001;
+
+    private static final byte[]     NO_EXTRA      = {};
+
+    private static final AsciiBytes NO_COMMENT    = new AsciiBytes("");
 
     private byte[]                  header;
 
@@ -48,6 +56,10 @@ final public class CentralDirectoryFileHeader implements FileHeader {
 
     private AsciiBytes              comment;
 
+    private long                    compressedSize;
+
+    private long                    size;
+
     private long                    localHeaderOffset;
 
     public CentralDirectoryFileHeader() {
@@ -61,6 +73,8 @@ final public class CentralDirectoryFileHeader implements FileHeader {
         this.name = name;
         this.extra = extra;
         this.comment = comment;
+        this.compressedSize = Bytes.littleEndianValue(header, headerOffset + 20, 4);
+        this.size = Bytes.littleEndianValue(header, headerOffset + 24, 4);
         this.localHeaderOffset = localHeaderOffset;
     }
 
@@ -72,6 +86,8 @@ final public class CentralDirectoryFileHeader implements FileHeader {
         long nameLength = Bytes.littleEndianValue(data, dataOffset + 28, 2);
         long extraLength = Bytes.littleEndianValue(data, dataOffset + 30, 2);
         long commentLength = Bytes.littleEndianValue(data, dataOffset + 32, 2);
+        this.compressedSize = Bytes.littleEndianValue(data, dataOffset + 20, 4);
+        this.size = Bytes.littleEndianValue(data, dataOffset + 24, 4);
         this.localHeaderOffset = Bytes.littleEndianValue(data, dataOffset + 42, 4);
         // Load variable part
         dataOffset += 46;
@@ -96,6 +112,41 @@ final public class CentralDirectoryFileHeader implements FileHeader {
             this.comment = new AsciiBytes(data, (int) (dataOffset + nameLength + extraLength),
                 (int) commentLength);
         }
+        if (this.size == ZIP64_MAGIC || this.compressedSize == ZIP64_MAGIC
+            || this.localHeaderOffset == ZIP64_MAGIC) {
+            loadZip64Extra();
+        }
+    }
+
+    /**
+     * Load the values which do not fit in the header from the Zip64 extended information
+     * extra field, it only holds the values whose header field is set to 0xFFFFFFFF, in
+     * the order of size, compressed size and local header offset.
+     */
+    private void loadZip64Extra() throws IOException {
+        int position = 0;
+        while (position + 4 <= this.extra.length) {
+            int id = (int) Bytes.littleEndianValue(this.extra, position, 2);
+            int length = (int) Bytes.littleEndianValue(this.extra, position + 2, 2);
+            position += 4;
+            if (id == ZIP64_EXTRA) {
+                int end = Math.min(position + length, this.extra.length);
+                if (this.size == ZIP64_MAGIC && position + 8 <= end) {
+                    this.size = Bytes.littleEndianValue(this.extra, position, 8);
+                    position += 8;
+                }
+                if (this.compressedSize == ZIP64_MAGIC && position + 8 <= end) {
+                    this.compressedSize = Bytes.littleEndianValue(this.extra, position, 8);
+                    position += 8;
+                }
+                if (this.localHeaderOffset == ZIP64_MAGIC && position + 8 <= end) {
+                    this.localHeaderOffset = Bytes.littleEndianValue(this.extra, position, 8);
+                }
+                return;
+            }
+            position += length;
+        }
+        throw new IOException("Missing Zip64 extended information of entry " + this.name);
     }
 
     public AsciiBytes getName() {
@@ -146,12 +197,12 @@ final public class CentralDirectoryFileHeader implements FileHeader {
 
     @Override
     public long getCompressedSize() {
-        return Bytes.littleEndianValue(this.header, this.headerOffset + 20, 4);
+        return this.compressedSize;
     }
 
     @Override
     public long getSize() {
-        return Bytes.littleEndianValue(this.header, this.headerOffset + 24, 4);
+        return this.size;
     }
 
     public byte[] getExtra() {
@@ -171,16 +222,28 @@ final public class CentralDirectoryFileHeader implements FileHeader {
     public CentralDirectoryFileHeader clone() {
         byte[] header = new byte[46];
         System.arraycopy(this.header, this.headerOffset, header, 0, header.length);
-        return new CentralDirectoryFileHeader(header, 0, this.name, header, this.comment,
-            this.localHeaderOffset);
+        CentralDirectoryFileHeader fileHeader = new CentralDirectoryFileHeader(header, 0,
+            this.name, header, this.comment, this.localHeaderOffset);
+        fileHeader.compressedSize = this.compressedSize;
+        fileHeader.size = this.size;
+        return fileHeader;
     }
 
     public static CentralDirectoryFileHeader fromRandomAccessData(RandomAccessData data,
                                                                   int offset, JarEntryFilter filter)
                                                                                                     throws IOException {
         CentralDirectoryFileHeader fileHeader = new CentralDirectoryFileHeader();
-        byte[] bytes = Bytes.get(data.getSubsection(offset, 46));
-        fileHeader.load(bytes, 0, data, offset, filter);
+        // read the fixed part together with a typical name, so most headers take one read
+        int length = (int) Math.min(data.getSize() - offset, BASE_SIZE + PREFETCH_SIZE);
+        byte[] bytes = Bytes.get(data.getSubsection(offset, length));
+        long variableSize = Bytes.littleEndianValue(bytes, 28, 2)
+                            + Bytes.littleEndianValue(bytes, 30, 2)
+                            + Bytes.littleEndianValue(bytes, 32, 2);
+        if (BASE_SIZE + variableSize <= bytes.length) {
+            fileHeader.load(bytes, 0, null, 0, filter);
+        } else {
+            fileHeader.load(bytes, 0, data, offset, filter);
+        }
         return fileHeader;
     }
 
@@ -0,0 +1,372 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alipay.sofa.ark.loader.jar;
+
+import com.alipay.sofa.ark.common.util.EnvironmentUtils;
+import com.alipay.sofa.ark.loader.data.RandomAccessDataFile;
+import com.alipay.sofa.ark.spi.constant.Constants;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArraySet;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Precomputed {@link JarFileEntries} of a root jar file and of its nested jars, persisted
+ * in a sidecar file so that later starts skip parsing and sorting the central directories.
+ * <p>
+ * Jars are recorded into the index as they are opened, nothing is opened only to build the
+ * index. Indexes which recorded new jars are persisted when the process exits, so the
+ * index of a root jar file grows over the first starts and is regenerated whenever the
+ * size or the last modified time of the root jar file changes. Each nested jar is
+ * additionally keyed by its size and the checksum of its end of central directory record,
+ * a jar whose key does not match is parsed as usual. An index is read from disk once per
+ * root jar file and process, an index file which can not be read is treated as stale.
+ * Jars under {@link #exclude(File) excluded} directories, such as unpacked nested jars
+ * addressed by their content, are not indexed.
+ *
+ * @author agent
+ * @since 0.6.0
+ */
+public class CentralDirectoryIndex {
+
+    private static final int                                            MAGIC               = 0x41524B49;
+
+    private static final int                                            VERSION             = 1;
+
+    private static final String                                         INDEX_FILE_SUFFIX   = ".idx";
+
+    /**
+     * Bytes of a section without its entries: path length, data size, checksum, signed flag
+     * and entry count
+     */
+    private static final int                                            MIN_SECTION_SIZE    = 23;
+
+    /**
+     * Bytes of each entry of a section: hash code, central directory offset and position
+     */
+    private static final int                                            ENTRY_SIZE          = 12;
+
+    private final long                                                  length;
+
+    private final long                                                  lastModified;
+
+    private final Map<String, Section>                                  sections            = new ConcurrentHashMap<>();
+
+    private volatile boolean                                            dirty;
+
+    private static final ConcurrentHashMap<File, CentralDirectoryIndex> loadedIndexes       = new ConcurrentHashMap<>();
+
+    private static final Set<File>                                      excludedDirectories = new CopyOnWriteArraySet<>();
+
+    private static final AtomicBoolean                                  shutdownHookAdded   = new AtomicBoolean();
+
+    CentralDirectoryIndex(long length, long lastModified) {
+        this.length = length;
+        this.lastModified = lastModified;
+    }
+
+    public static boolean isEnabled() {
+        return Boolean.valueOf(EnvironmentUtils.getProperty(Constants.ARK_JAR_INDEX_ENABLE));
+    }
+
+    /**
+     * Return the directory holding index files
+     * @return the directory
+     */
+    public static File getDirectory() {
+        String directory = EnvironmentUtils.getProperty(Constants.ARK_JAR_INDEX_DIRECTORY);
+        if (directory == null) {
+            return new File(System.getProperty("user.home"), ".sofa-ark" + File.separator + "index");
+        }
+        return new File(directory);
+    }
+
+    /**
+     * Return the index file of the given root jar file
+     * @param jarFile the root jar file
+     * @return the index file
+     */
+    public static File getIndexFile(File jarFile) {
+        String path = jarFile.getAbsolutePath();
+        return new File(getDirectory(), jarFile.getName() + "-"
+                                        + Integer.toHexString(path.hashCode()) + INDEX_FILE_SUFFIX);
+    }
+
+    /**
+     * Exclude the jars under the given directory from indexing
+     * @param directory the directory
+     */
+    public static void exclude(File directory) {
+        excludedDirectories.add(directory.getAbsoluteFile());
+    }
+
+    /**
+     * Load the index of the given root jar file, an index which does not exist or is stale
+     * is created empty and filled as jars are opened.
+     * @param rootFile the root jar file
+     * @return the index, or null if disabled or not applicable
+     */
+    static CentralDirectoryIndex load(RandomAccessDataFile rootFile) {
+        if (!isEnabled()) {
+            return null;
+        }
+        File file = rootFile.getFile().getAbsoluteFile();
+        if (isExcluded(file)) {
+            return null;
+        }
+        CentralDirectoryIndex index = loadedIndexes.get(file);
+        if (index != null && index.matches(file)) {
+            return index;
+        }
+        index = null;
+        File indexFile = getIndexFile(file);
+        if (indexFile.isFile()) {
+            try {
+                index = read(indexFile);
+            } catch (IOException | RuntimeException ex) {
+                // corrupted or of an older version, generate again
+            }
+        }
+        if (index == null || !index.matches(file)) {
+            index = new CentralDirectoryIndex(file.length(), file.lastModified());
+        }
+        loadedIndexes.put(file, index);
+        return index;
+    }
+
+    /**
+     * Drop the index of the given root jar file loaded by this process, it is read again
+     * from disk by jar files opened afterwards
+     * @param rootFile the root jar file
+     * @return true if an index was loaded
+     */
+    public static boolean release(File rootFile) {
+        return loadedIndexes.remove(rootFile.getAbsoluteFile()) != null;
+    }
+
+    private static boolean isExcluded(File file) {
+        for (File directory : excludedDirectories) {
+            if (file.toPath().startsWith(directory.toPath())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private boolean matches(File file) {
+        return this.length == file.length() && this.lastModified == file.lastModified();
+    }
+
+    /**
+     * Persist the loaded indexes which recorded new jars since they were read, this is done
+     * when the process exits
+     */
+    public static void persist() {
+        for (Map.Entry<File, CentralDirectoryIndex> entry : loadedIndexes.entrySet()) {
+            CentralDirectoryIndex index = entry.getValue();
+            if (index.dirty && index.matches(entry.getKey())) {
+                index.dirty = false;
+                try {
+                    index.write(getIndexFile(entry.getKey()));
+                } catch (IOException ex) {
+                    // the index is only a cache
+                }
+            }
+        }
+    }
+
+    /**
+     * Read an index file, every count is validated against the bytes left so that a
+     * truncated or corrupted file fails with an {@link IOException}
+     * @param indexFile the index file
+     * @return the index
+     * @throws IOException if the file can not be read or is invalid
+     */
+    static CentralDirectoryIndex read(File indexFile) throws IOException {
+        ByteArrayInputStream bytes = new ByteArrayInputStream(
+            Files.readAllBytes(indexFile.toPath()));
+        DataInputStream inputStream = new DataInputStream(bytes);
+        if (inputStream.readInt() != MAGIC || inputStream.readInt() != VERSION) {
+            throw new IOException("Invalid index file " + indexFile);
+        }
+        CentralDirectoryIndex index = new CentralDirectoryIndex(inputStream.readLong(),
+            inputStream.readLong());
+        int sectionCount = inputStream.readInt();
+        checkCount(indexFile, sectionCount, MIN_SECTION_SIZE, bytes.available());
+        for (int i = 0; i < sectionCount; i++) {
+            String pathFromRoot = inputStream.readUTF();
+            long dataSize = inputStream.readLong();
+            long checksum = inputStream.readLong();
+            boolean signed = inputStream.readBoolean();
+            int size = inputStream.readInt();
+            checkCount(indexFile, size, ENTRY_SIZE, bytes.available());
+            int[] hashCodes = new int[size];
+            int[] centralDirectoryOffsets = new int[size];
+            int[] positions = new int[size];
+            for (int j = 0; j < size; j++) {
+                hashCodes[j] = inputStream.readInt();
+                centralDirectoryOffsets[j] = inputStream.readInt();
+                positions[j] = inputStream.readInt();
+                if ((j > 0 && hashCodes[j] < hashCodes[j - 1]) || centralDirectoryOffsets[j] < 0
+                    || positions[j] < 0 || positions[j] >= size) {
+                    throw new IOException("Invalid entry in index file " + indexFile);
+                }
+            }
+            index.sections.put(pathFromRoot, new Section(dataSize, checksum, signed, hashCodes,
+                centralDirectoryOffsets, positions));
+        }
+        if (bytes.available() != 0) {
+            throw new IOException("Trailing bytes in index file " + indexFile);
+        }
+        return index;
+    }
+
+    private static void checkCount(File indexFile, int count, int bytesPerItem, int available)
+                                                                                              throws IOException {
+        if (count < 0 || (long) count * bytesPerItem > available) {
+            throw new IOException("Invalid count " + count + " in index file " + indexFile);
+        }
+    }
+
+    void write(File indexFile) throws IOException {
+        File directory = indexFile.getParentFile();
+        if (!directory.isDirectory() && !directory.mkdirs()) {
+            throw new IOException("Unable to create directory " + directory);
+        }
+        // write to a temp file first so that concurrent starts never read a partial index
+        File tempFile = File.createTempFile(indexFile.getName(), null, directory);
+        DataOutputStream outputStream = new DataOutputStream(new BufferedOutputStream(
+            new FileOutputStream(tempFile)));
+        try {
+            outputStream.writeInt(MAGIC);
+            outputStream.writeInt(VERSION);
+            outputStream.writeLong(this.length);
+            outputStream.writeLong(this.lastModified);
+            // a snapshot, jars may still be recorded concurrently
+            Map<String, Section> sections = new HashMap<>(this.sections);
+            outputStream.writeInt(sections.size());
+            for (Map.Entry<String, Section> entry : sections.entrySet()) {
+                Section section = entry.getValue();
+                outputStream.writeUTF(entry.getKey());
+                outputStream.writeLong(section.dataSize);
+                outputStream.writeLong(section.checksum);
+                outputStream.writeBoolean(section.signed);
+                outputStream.writeInt(section.hashCodes.length);
+                for (int i = 0; i < section.hashCodes.length; i++) {
+                    outputStream.writeInt(section.hashCodes[i]);
+                    outputStream.writeInt(section.centralDirectoryOffsets[i]);
+                    outputStream.writeInt(section.positions[i]);
+                }
+            }
+        } finally {
+            outputStream.close();
+        }
+        if (!tempFile.renameTo(indexFile)) {
+            indexFile.delete();
+            if (!tempFile.renameTo(indexFile)) {
+                tempFile.delete();
+                throw new IOException("Unable to write index file " + indexFile);
+            }
+        }
+    }
+
+    /**
+     * Return the indexed entries of a jar
+     * @param pathFromRoot the path of the jar from the root jar file
+     * @param dataSize size of the jar data
+     * @param endRecord end of central directory record of the jar
+     * @return the entries, or null if the jar is not indexed or the index is stale
+     */
+    Section getSection(String pathFromRoot, long dataSize, CentralDirectoryEndRecord endRecord) {
+        Section section = this.sections.get(pathFromRoot);
+        if (section == null || section.dataSize != dataSize
+            || section.checksum != endRecord.getChecksum()) {
+            return null;
+        }
+        return section;
+    }
+
+    void putSection(String pathFromRoot, Section section) {
+        this.sections.put(pathFromRoot, section);
+        this.dirty = true;
+        if (shutdownHookAdded.compareAndSet(false, true)) {
+            Runtime.getRuntime().addShutdownHook(new Thread("sofa-ark-jar-index-persist") {
+                @Override
+                public void run() {
+                    persist();
+                }
+            });
+        }
+    }
+
+    /**
+     * Sorted entries of a single jar, as built by {@link JarFileEntries}.
+     */
+    static final class Section {
+
+        private final long    dataSize;
+
+        private final long    checksum;
+
+        private final boolean signed;
+
+        private final int[]   hashCodes;
+
+        private final int[]   centralDirectoryOffsets;
+
+        private final int[]   positions;
+
+        Section(long dataSize, long checksum, boolean signed, int[] hashCodes,
+                int[] centralDirectoryOffsets, int[] positions) {
+            this.dataSize = dataSize;
+            this.checksum = checksum;
+            this.signed = signed;
+            this.hashCodes = hashCodes;
+            this.centralDirectoryOffsets = centralDirectoryOffsets;
+            this.positions = positions;
+        }
+
+        boolean isSigned() {
+            return this.signed;
+        }
+
+        int[] getHashCodes() {
+            return this.hashCodes;
+        }
+
+        int[] getCentralDirectoryOffsets() {
+            return this.centralDirectoryOffsets;
+        }
+
+        int[] getPositions() {
+            return this.positions;
+        }
+
+    }
+
+}
@@ -17,13 +17,19 @@
 package com.alipay.sofa.ark.loader.jar;
 
 import com.alipay.sofa.ark.loader.data.RandomAccessData;
+import com.alipay.sofa.ark.loader.data.RandomAccessData.ResourceAccess;
 
 import java.io.IOException;
+import java.io.InputStream;
 import java.util.ArrayList;
 import java.util.List;
 
 /**
  * Parses the central directory from a JAR file.
+ * <p>
+ * The central directory is streamed through a window of at most {@link #WINDOW_SIZE}
+ * bytes rather than copied into a single array, so parsing a jar with a huge number of
+ * entries never allocates more than the window, and headers are decoded in place.
  *
  * @author Phillip Webb
  * @see CentralDirectoryVisitor
@@ -32,6 +38,8 @@ final public class CentralDirectoryParser {
 
     private final static int                    CENTRAL_DIRECTORY_HEADER_BASE_SIZE = 46;
 
+    private final static int                    WINDOW_SIZE                        = 64 * 1024;
+
     private final List<CentralDirectoryVisitor> visitors                           = new ArrayList<>();
 
     public <T extends CentralDirectoryVisitor> T addVisitor(T visitor) {
@@ -61,14 +69,25 @@ final public class CentralDirectoryParser {
 
     private void parseEntries(CentralDirectoryEndRecord endRecord,
                               RandomAccessData centralDirectoryData) throws IOException {
-        byte[] bytes = Bytes.get(centralDirectoryData);
+        if (centralDirectoryData.getSize() > Integer.MAX_VALUE) {
+            throw new IOException("Central directory larger than 2GB is not supported");
+        }
         CentralDirectoryFileHeader fileHeader = new CentralDirectoryFileHeader();
-        int dataOffset = 0;
-        for (int i = 0; i < endRecord.getNumberOfRecords(); i++) {
-            fileHeader.load(bytes, dataOffset, null, 0, null);
-            visitFileHeader(dataOffset, fileHeader);
-            dataOffset += CENTRAL_DIRECTORY_HEADER_BASE_SIZE + fileHeader.getName().length()
-                          + fileHeader.getComment().length() + fileHeader.getExtra().length;
+        Window window = new Window(centralDirectoryData.getInputStream(ResourceAccess.ONCE),
+            (int) Math.min(WINDOW_SIZE, centralDirectoryData.getSize()));
+        try {
+            int dataOffset = 0;
+            for (int i = 0; i < endRecord.getNumberOfRecords(); i++) {
+                window.require(CENTRAL_DIRECTORY_HEADER_BASE_SIZE);
+                int headerSize = CENTRAL_DIRECTORY_HEADER_BASE_SIZE + window.getVariableSize();
+                window.require(headerSize);
+                fileHeader.load(window.bytes, window.position, null, 0, null);
+                visitFileHeader(dataOffset, fileHeader);
+                window.position += headerSize;
+                dataOffset += headerSize;
+            }
+        } finally {
+            window.inputStream.close();
         }
     }
 
@@ -100,4 +119,59 @@ final public class CentralDirectoryParser {
         }
     }
 
+    /**
+     * Window over the central directory stream, bytes before {@link #position} are consumed
+     * and reused once the visitors of a header returned.
+     */
+    private static final class Window {
+
+        private final InputStream inputStream;
+
+        private byte[]            bytes;
+
+        private int               position;
+
+        private int               limit;
+
+        Window(InputStream inputStream, int size) {
+            this.inputStream = inputStream;
+            this.bytes = new byte[size];
+        }
+
+        /**
+         * Make sure that the given number of bytes from the current position are loaded,
+         * the window only grows beyond its size for headers larger than the window.
+         */
+        void require(int length) throws IOException {
+            if (this.limit - this.position >= length) {
+                return;
+            }
+            int remaining = this.limit - this.position;
+            byte[] target = (length > this.bytes.length) ? new byte[length] : this.bytes;
+            System.arraycopy(this.bytes, this.position, target, 0, remaining);
+            this.bytes = target;
+            this.position = 0;
+            this.limit = remaining;
+            while (this.limit < length) {
+                int read = this.inputStream.read(this.bytes, this.limit, this.bytes.length
+                                                                         - this.limit);
+                if (read == -1) {
+                    throw new IOException("Unexpected end of central directory");
+                }
+                this.limit += read;
+            }
+        }
+
+        /**
+         * Return the size of name, extra field and comment of the header at the current
+         * position.
+         */
+        int getVariableSize() {
+            return (int) (Bytes.littleEndianValue(this.bytes, this.position + 28, 2)
+                          + Bytes.littleEndianValue(this.bytes, this.position + 30, 2) + Bytes
+                .littleEndianValue(this.bytes, this.position + 32, 2));
+        }
+
+    }
+
 }
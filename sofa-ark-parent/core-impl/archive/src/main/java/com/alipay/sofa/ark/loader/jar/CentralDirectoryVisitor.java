@@ -27,6 +27,13 @@ public interface CentralDirectoryVisitor {
 
     void visitStart(CentralDirectoryEndRecord endRecord, RandomAccessData centralDirectoryData);
 
+    /**
+     * Visit a file header, the header and its name are only valid during the call as the
+     * parser reuses them for the next headers, use {@link CentralDirectoryFileHeader#clone()}
+     * to keep the fixed part.
+     * @param fileHeader the file header
+     * @param dataOffset offset of the header in the central directory
+     */
     void visitFileHeader(CentralDirectoryFileHeader fileHeader, int dataOffset);
 
     void visitEnd();
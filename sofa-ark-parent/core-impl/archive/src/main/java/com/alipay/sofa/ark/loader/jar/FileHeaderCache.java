@@ -0,0 +1,123 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alipay.sofa.ark.loader.jar;
+
+import com.alipay.sofa.ark.common.util.EnvironmentUtils;
+import com.alipay.sofa.ark.common.util.StripedCounter;
+import com.alipay.sofa.ark.spi.constant.Constants;
+
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Lock free cache of {@link FileHeader}s of a jar, keyed by the sorted entry index of
+ * {@link JarFileEntries}. The cache is direct mapped, an entry can only live in the slot
+ * {@code index & (capacity - 1)} and replaces whatever entry was there, so lookups and
+ * updates are a single array access without any ordering bookkeeping.
+ * <p>
+ * The capacity scales with the number of entries, one slot per
+ * {@link #ENTRIES_PER_SLOT} entries, bounded by {@literal sofa.ark.jar.entry.cache.size}.
+ * Signed jars get a slot per entry so that entries, which carry certificates once read,
+ * are never evicted.
+ *
+ * @author agent
+ * @since 0.6.0
+ */
+class FileHeaderCache {
+
+    static final int                         ENTRIES_PER_SLOT = 8;
+
+    private static final int                 MIN_CAPACITY     = 16;
+
+    private final AtomicReferenceArray<Slot> slots;
+
+    private final int                        mask;
+
+    private final StripedCounter             hitCount         = new StripedCounter();
+
+    private final StripedCounter             missCount        = new StripedCounter();
+
+    FileHeaderCache(int capacity) {
+        int size = MIN_CAPACITY;
+        while (size < capacity) {
+            size <<= 1;
+        }
+        this.slots = new AtomicReferenceArray<>(size);
+        this.mask = size - 1;
+    }
+
+    /**
+     * Create the cache of a jar
+     * @param entryCount number of entries of the jar
+     * @param signed whether the jar is signed
+     * @return the cache
+     */
+    static FileHeaderCache create(int entryCount, boolean signed) {
+        if (signed) {
+            return new FileHeaderCache(entryCount);
+        }
+        int maxCapacity = Integer.parseInt(EnvironmentUtils.getProperty(
+            Constants.ARK_JAR_ENTRY_CACHE_SIZE,
+            String.valueOf(Constants.DEFAULT_ARK_JAR_ENTRY_CACHE_SIZE)));
+        return new FileHeaderCache(Math.min(entryCount / ENTRIES_PER_SLOT, maxCapacity));
+    }
+
+    FileHeader get(int index) {
+        Slot slot = this.slots.get(index & this.mask);
+        if (slot != null && slot.index == index) {
+            this.hitCount.increment();
+            return slot.entry;
+        }
+        this.missCount.increment();
+        return null;
+    }
+
+    void put(int index, FileHeader entry) {
+        this.slots.set(index & this.mask, new Slot(index, entry));
+    }
+
+    void clear() {
+        for (int i = 0; i < this.slots.length(); i++) {
+            this.slots.set(i, null);
+        }
+    }
+
+    int getCapacity() {
+        return this.slots.length();
+    }
+
+    long getHitCount() {
+        return this.hitCount.get();
+    }
+
+    long getMissCount() {
+        return this.missCount.get();
+    }
+
+    private static final class Slot {
+
+        private final int        index;
+
+        private final FileHeader entry;
+
+        Slot(int index, FileHeader entry) {
+            this.index = index;
+            this.entry = entry;
+        }
+
+    }
+
+}
@@ -16,15 +16,18 @@
  */
 package com.alipay.sofa.ark.loader.jar;
 
+import com.alipay.sofa.ark.common.util.EnvironmentUtils;
+import com.alipay.sofa.ark.common.util.StripedCounter;
 import com.alipay.sofa.ark.common.util.StringUtils;
+import com.alipay.sofa.ark.spi.constant.Constants;
 
 import java.io.File;
 import java.io.IOException;
-import java.lang.ref.SoftReference;
+import java.io.UnsupportedEncodingException;
 import java.lang.reflect.Method;
 import java.net.*;
+import java.util.LinkedHashMap;
 import java.util.Map;
-import java.util.concurrent.ConcurrentHashMap;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -40,15 +43,15 @@ public class Handler extends URLStreamHandler {
     // NOTE: in order to be found as a URL protocol handler, this class must be public,
     // must be named Handler and must be in a package ending '.jar'
 
-    private static final String                      JAR_PROTOCOL      = "jar:";
+    private static final String             JAR_PROTOCOL           = "jar:";
 
-    private static final String                      FILE_PROTOCOL     = "file:";
+    private static final String             FILE_PROTOCOL          = "file:";
 
-    private static final String                      SEPARATOR         = "!/";
+    private static final String             SEPARATOR              = "!/";
 
-    private static final String[]                    FALLBACK_HANDLERS = { "sun.net.www.protocol.jar.Handler" };
+    private static final String[]           FALLBACK_HANDLERS      = { "sun.net.www.protocol.jar.Handler" };
 
-    private static final Method                      OPEN_CONNECTION_METHOD;
+    private static final Method             OPEN_CONNECTION_METHOD;
 
     static {
         Method method = null;
@@ -60,15 +63,29 @@ public class Handler extends URLStreamHandler {
         OPEN_CONNECTION_METHOD = method;
     }
 
-    private static SoftReference<Map<File, JarFile>> rootFileCache;
+    /**
+     * Root jar files in access order, guarded by itself
+     */
+    private static final Map<File, JarFile> rootFileCache          = new RootFileCache();
+
+    /**
+     * Striped guards so that concurrent misses of the same root jar file open it only once
+     */
+    private static final Object[]           rootFileLocks          = new Object[32];
+
+    private static final StripedCounter     rootFileCacheHitCount  = new StripedCounter();
+
+    private static final StripedCounter     rootFileCacheMissCount = new StripedCounter();
 
     static {
-        rootFileCache = new SoftReference<>(null);
+        for (int i = 0; i < rootFileLocks.length; i++) {
+            rootFileLocks[i] = new Object();
+        }
     }
 
-    private final JarFile                            jarFile;
+    private final JarFile                   jarFile;
 
-    private URLStreamHandler                         fallbackHandler;
+    private URLStreamHandler                fallbackHandler;
 
     public Handler() {
         this(null);
@@ -290,11 +307,18 @@ public class Handler extends URLStreamHandler {
             }
             String path = name.substring(FILE_PROTOCOL.length());
             File file = new File(URLDecoder.decode(path, "UTF-8"));
-            Map<File, JarFile> cache = rootFileCache.get();
-            JarFile result = (cache == null ? null : cache.get(file));
-            if (result == null) {
-                result = new JarFile(file);
-                addToRootFileCache(file, result);
+            JarFile result = getFromRootFileCache(file);
+            if (result != null) {
+                rootFileCacheHitCount.increment();
+                return result;
+            }
+            synchronized (rootFileLocks[(file.hashCode() & 0x7fffffff) % rootFileLocks.length]) {
+                result = getFromRootFileCache(file);
+                if (result == null) {
+                    rootFileCacheMissCount.increment();
+                    result = new JarFile(file);
+                    addToRootFileCache(file, result);
+                }
             }
             return result;
         } catch (Exception ex) {
@@ -302,18 +326,89 @@ public class Handler extends URLStreamHandler {
         }
     }
 
+    private static JarFile getFromRootFileCache(File file) {
+        synchronized (rootFileCache) {
+            return rootFileCache.get(file);
+        }
+    }
+
     /**
-     * Add the given {@link JarFile} to the root file cache.
+     * Add the given {@link JarFile} to the root file cache. The cache is strongly held and
+     * bounded by {@literal sofa.ark.jar.root.cache.size}, the least recently used root
+     * file is dropped and closed when it is full.
      * @param sourceFile the source file to add
      * @param jarFile the jar file.
      */
     static void addToRootFileCache(File sourceFile, JarFile jarFile) {
-        Map<File, JarFile> cache = rootFileCache.get();
-        if (cache == null) {
-            cache = new ConcurrentHashMap<>(16);
-            rootFileCache = new SoftReference<>(cache);
+        JarFile replaced;
+        synchronized (rootFileCache) {
+            replaced = rootFileCache.put(sourceFile, jarFile);
+        }
+        if (replaced != null && replaced != jarFile) {
+            closeQuietly(replaced);
+        }
+    }
+
+    /**
+     * Release and close the cached root {@link JarFile} of the given url, e.g. when the biz
+     * it belongs to is uninstalled. Urls or connections still referring to the jar file
+     * keep working, its file channel is reopened on demand. Cached manifests and the loaded
+     * central directory index of the root jar file are dropped as well.
+     * @param url url of the root jar file or of an entry in it
+     * @return true if a cached root jar file is released
+     */
+    public static boolean releaseRootJarFile(URL url) {
+        String spec = url.toString();
+        if (spec.startsWith(JAR_PROTOCOL)) {
+            spec = spec.substring(JAR_PROTOCOL.length());
+        }
+        int separatorIndex = spec.indexOf(SEPARATOR);
+        if (separatorIndex != -1) {
+            spec = spec.substring(0, separatorIndex);
+        }
+        if (!spec.startsWith(FILE_PROTOCOL)) {
+            return false;
+        }
+        try {
+            File file = new File(URLDecoder.decode(spec.substring(FILE_PROTOCOL.length()), "UTF-8"));
+            JarFile.invalidateManifests(file);
+            CentralDirectoryIndex.release(file);
+            JarFile released;
+            synchronized (rootFileCache) {
+                released = rootFileCache.remove(file);
+            }
+            if (released == null) {
+                return false;
+            }
+            closeQuietly(released);
+            return true;
+        } catch (UnsupportedEncodingException ex) {
+            throw new IllegalStateException(ex);
+        }
+    }
+
+    /**
+     * Return the number of root jar file lookups served by the cache.
+     * @return the hit count
+     */
+    public static long getRootFileCacheHitCount() {
+        return rootFileCacheHitCount.get();
+    }
+
+    /**
+     * Return the number of root jar file lookups which had to open and parse the root jar.
+     * @return the miss count
+     */
+    public static long getRootFileCacheMissCount() {
+        return rootFileCacheMissCount.get();
+    }
+
+    private static void closeQuietly(JarFile jarFile) {
+        try {
+            jarFile.close();
+        } catch (IOException ex) {
+            // Swallow and ignore
         }
-        cache.put(sourceFile, jarFile);
     }
 
     /**
@@ -326,4 +421,29 @@ public class Handler extends URLStreamHandler {
         JarURLConnection.setUseFastExceptions(useFastConnectionExceptions);
     }
 
+    /**
+     * Access ordered map of root jar files bounded by a size read once, at least the last
+     * added root jar file is kept. Evicted root jar files are closed.
+     */
+    private static final class RootFileCache extends LinkedHashMap<File, JarFile> {
+
+        private final int maxSize = Integer.parseInt(EnvironmentUtils.getProperty(
+                                      Constants.ARK_JAR_ROOT_CACHE_SIZE,
+                                      String.valueOf(Constants.DEFAULT_ARK_JAR_ROOT_CACHE_SIZE)));
+
+        RootFileCache() {
+            super(16, 0.75f, true);
+        }
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<File, JarFile> eldest) {
+            if (size() > Math.max(maxSize, 1)) {
+                closeQuietly(eldest.getValue());
+                return true;
+            }
+            return false;
+        }
+
+    }
+
 }
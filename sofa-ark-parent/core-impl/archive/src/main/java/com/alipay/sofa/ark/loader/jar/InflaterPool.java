@@ -0,0 +1,68 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alipay.sofa.ark.loader.jar;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.zip.Inflater;
+
+/**
+ * Bounded pools of {@link Inflater}s and of {@link #BUFFER_SIZE} input buffers shared by
+ * all {@link ZipInflaterInputStream}s. Released inflaters are reset, inflaters which do not fit
+ * into the pool any more are ended at once so that their native memory does not wait for
+ * finalization. Streams that are never closed simply do not return their inflater, which is
+ * then ended by finalization as before.
+ *
+ * @author agent
+ * @since 0.6.0
+ */
+final class InflaterPool {
+
+    static final int                             BUFFER_SIZE = 65536;
+
+    private static final int                     POOL_SIZE   = Math.max(4, 2 * Runtime.getRuntime()
+                                                                 .availableProcessors());
+
+    private static final BlockingQueue<Inflater> INFLATERS   = new ArrayBlockingQueue<>(POOL_SIZE);
+
+    private static final BlockingQueue<byte[]>   BUFFERS     = new ArrayBlockingQueue<>(POOL_SIZE);
+
+    private InflaterPool() {
+    }
+
+    static Inflater acquireInflater() {
+        Inflater inflater = INFLATERS.poll();
+        return inflater != null ? inflater : new Inflater(true);
+    }
+
+    static void releaseInflater(Inflater inflater) {
+        inflater.reset();
+        if (!INFLATERS.offer(inflater)) {
+            inflater.end();
+        }
+    }
+
+    static byte[] acquireBuffer() {
+        byte[] buffer = BUFFERS.poll();
+        return buffer != null ? buffer : new byte[BUFFER_SIZE];
+    }
+
+    static void releaseBuffer(byte[] buffer) {
+        BUFFERS.offer(buffer);
+    }
+
+}
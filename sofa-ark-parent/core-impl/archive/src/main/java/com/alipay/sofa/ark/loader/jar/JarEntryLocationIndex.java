@@ -0,0 +1,199 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alipay.sofa.ark.loader.jar;
+
+import java.io.IOException;
+import java.net.URL;
+import java.net.URLConnection;
+import java.util.Arrays;
+
+/**
+ * Merged index of entry names to the position of the {@link JarFile} which contains them
+ * in a classpath. The index is keyed by the entry name hash codes already computed in
+ * {@link JarFileEntries}, so a lookup only probes the jars that may contain an entry,
+ * in classpath order.
+ * <p>
+ * Each hash slot stores {@code jarIndex + 1} when a single jar has the hash, or
+ * {@code -(overflowIndex + 1)} pointing to an ascending list of jar indexes.
+ *
+ * @author agent
+ * @since 0.6.0
+ */
+public class JarEntryLocationIndex {
+
+    private static final String SLASH         = "/";
+
+    private final URL[]         urls;
+
+    private final JarFile[]     jarFiles;
+
+    private final int[]         hashCodes;
+
+    private final int[]         locations;
+
+    private int[][]             overflows     = new int[0][];
+
+    private int[]               overflowSizes = new int[0];
+
+    private int                 overflowCount;
+
+    private JarEntryLocationIndex(URL[] urls, JarFile[] jarFiles) {
+        this.urls = urls;
+        this.jarFiles = jarFiles;
+        int count = 0;
+        for (JarFile jarFile : jarFiles) {
+            count += jarFile.getEntries().getSize();
+        }
+        int capacity = Integer.highestOneBit(Math.max(count, 1) * 2 - 1) << 1;
+        this.hashCodes = new int[capacity];
+        this.locations = new int[capacity];
+        for (int i = 0; i < jarFiles.length; i++) {
+            JarFileEntries entries = jarFiles[i].getEntries();
+            for (int j = 0; j < entries.getSize(); j++) {
+                int hashCode = entries.getHashCode(j);
+                // hash codes are sorted, so each distinct one is recorded once per jar
+                if (j == 0 || entries.getHashCode(j - 1) != hashCode) {
+                    add(hashCode, i);
+                }
+            }
+        }
+        for (int i = 0; i < this.overflowCount; i++) {
+            this.overflows[i] = Arrays.copyOf(this.overflows[i], this.overflowSizes[i]);
+        }
+        this.overflowSizes = null;
+    }
+
+    /**
+     * Create a location index for the given classpath.
+     * @param urls the classpath
+     * @return the location index, or {@code null} if any of the urls is not backed by an
+     * ark {@link JarFile}
+     */
+    public static JarEntryLocationIndex create(URL[] urls) {
+        JarFile[] jarFiles = new JarFile[urls.length];
+        try {
+            for (int i = 0; i < urls.length; i++) {
+                URLConnection connection = urls[i].openConnection();
+                if (!(connection instanceof JarURLConnection)
+                    || !((JarURLConnection) connection).getEntryName().isEmpty()) {
+                    return null;
+                }
+                jarFiles[i] = ((JarURLConnection) connection).getJarFile();
+            }
+        } catch (IOException ex) {
+            return null;
+        }
+        return new JarEntryLocationIndex(urls.clone(), jarFiles);
+    }
+
+    /**
+     * Return the position of the first jar at or after {@code fromIndex} which contains the
+     * given entry name, keeping the same first-wins semantics as probing each jar in order.
+     * @param name the entry name
+     * @param fromIndex the position to start from
+     * @return the jar position, or {@code -1} if none contains the entry
+     */
+    public int indexOf(String name, int fromIndex) {
+        int hashCode = AsciiBytes.hashCode(name);
+        int directoryHashCode = AsciiBytes.hashCode(hashCode, SLASH);
+        int index = fromIndex;
+        while (index < this.jarFiles.length) {
+            int candidate = nextCandidate(hashCode, index);
+            int directoryCandidate = nextCandidate(directoryHashCode, index);
+            if (candidate < 0 || (directoryCandidate >= 0 && directoryCandidate < candidate)) {
+                candidate = directoryCandidate;
+            }
+            if (candidate < 0) {
+                return -1;
+            }
+            if (this.jarFiles[candidate].containsEntry(name)) {
+                return candidate;
+            }
+            index = candidate + 1;
+        }
+        return -1;
+    }
+
+    public int getJarCount() {
+        return this.jarFiles.length;
+    }
+
+    public JarFile getJarFile(int index) {
+        return this.jarFiles[index];
+    }
+
+    public URL getUrl(int index) {
+        return this.urls[index];
+    }
+
+    private int nextCandidate(int hashCode, int fromIndex) {
+        int location = this.locations[slotOf(hashCode)];
+        if (location > 0) {
+            return location - 1 >= fromIndex ? location - 1 : -1;
+        }
+        if (location < 0) {
+            int[] overflow = this.overflows[-location - 1];
+            int index = Arrays.binarySearch(overflow, fromIndex);
+            index = index < 0 ? -index - 1 : index;
+            return index < overflow.length ? overflow[index] : -1;
+        }
+        return -1;
+    }
+
+    private int slotOf(int hashCode) {
+        int mask = this.locations.length - 1;
+        int slot = mix(hashCode) & mask;
+        while (this.locations[slot] != 0 && this.hashCodes[slot] != hashCode) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    private void add(int hashCode, int jarIndex) {
+        int slot = slotOf(hashCode);
+        int location = this.locations[slot];
+        if (location == 0) {
+            this.hashCodes[slot] = hashCode;
+            this.locations[slot] = jarIndex + 1;
+        } else if (location > 0) {
+            if (this.overflowCount == this.overflows.length) {
+                int length = Math.max(this.overflowCount * 2, 16);
+                this.overflows = Arrays.copyOf(this.overflows, length);
+                this.overflowSizes = Arrays.copyOf(this.overflowSizes, length);
+            }
+            this.overflows[this.overflowCount] = new int[] { location - 1, jarIndex, 0, 0 };
+            this.overflowSizes[this.overflowCount] = 2;
+            this.locations[slot] = -(++this.overflowCount);
+        } else {
+            int overflowIndex = -location - 1;
+            int[] overflow = this.overflows[overflowIndex];
+            int size = this.overflowSizes[overflowIndex];
+            if (size == overflow.length) {
+                overflow = Arrays.copyOf(overflow, size * 2);
+                this.overflows[overflowIndex] = overflow;
+            }
+            overflow[size] = jarIndex;
+            this.overflowSizes[overflowIndex] = size + 1;
+        }
+    }
+
+    private static int mix(int hashCode) {
+        int h = hashCode * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+
+}
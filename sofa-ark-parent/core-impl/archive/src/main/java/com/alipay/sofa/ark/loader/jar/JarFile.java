@@ -23,13 +23,13 @@ import com.alipay.sofa.ark.loader.data.RandomAccessDataFile;
 import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
-import java.lang.ref.SoftReference;
 import java.net.MalformedURLException;
 import java.net.URL;
 import java.net.URLStreamHandler;
 import java.net.URLStreamHandlerFactory;
 import java.util.Enumeration;
 import java.util.Iterator;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.jar.JarInputStream;
 import java.util.jar.Manifest;
 import java.util.zip.ZipEntry;
@@ -48,31 +48,48 @@ import java.util.zip.ZipEntry;
  */
 public class JarFile extends java.util.jar.JarFile {
 
-    private static final String        MANIFEST_NAME            = "META-INF/MANIFEST.MF";
+    private static final String                      MANIFEST_NAME            = "META-INF/MANIFEST.MF";
 
-    private static final String        PROTOCOL_HANDLER         = "java.protocol.handler.pkgs";
+    private static final String                      PROTOCOL_HANDLER         = "java.protocol.handler.pkgs";
 
-    private static final String        HANDLERS_PACKAGE         = "com.alipay.sofa.ark.loader";
+    private static final String                      HANDLERS_PACKAGE         = "com.alipay.sofa.ark.loader";
 
-    private static final AsciiBytes    META_INF                 = new AsciiBytes("META-INF/");
+    private static final AsciiBytes                  META_INF                 = new AsciiBytes(
+                                                                                  "META-INF/");
 
-    private static final AsciiBytes    SIGNATURE_FILE_EXTENSION = new AsciiBytes(".SF");
+    private static final AsciiBytes                  SIGNATURE_FILE_EXTENSION = new AsciiBytes(
+                                                                                  ".SF");
 
-    private final RandomAccessDataFile rootFile;
+    private static final AsciiBytes                  MANIFEST                 = new AsciiBytes(
+                                                                                  MANIFEST_NAME);
 
-    private final String               pathFromRoot;
+    private final RandomAccessDataFile               rootFile;
 
-    private final RandomAccessData     data;
+    private final String                             pathFromRoot;
 
-    private final JarFileType          type;
+    private final RandomAccessData                   data;
 
-    private URL                        url;
+    private final JarFileType                        type;
 
-    private JarFileEntries             entries;
+    private URL                                      url;
 
-    private SoftReference<Manifest>    manifest;
+    private JarFileEntries                           entries;
 
-    private boolean                    signed;
+    private volatile Manifest                        manifest;
+
+    private boolean                                  signed;
+
+    private final CentralDirectoryIndex              centralDirectoryIndex;
+
+    private final ConcurrentHashMap<String, JarFile> nestedJarFiles           = new ConcurrentHashMap<>(
+                                                                                  4);
+
+    private volatile JarUrlCache                     urlCache;
+
+    /**
+     * The jar file a nested directory is opened from, null for other jar files.
+     */
+    private JarFile                                  parent;
 
     /**
      * Create a new {@link JarFile} backed by the specified file.
@@ -89,7 +106,19 @@ public class JarFile extends java.util.jar.JarFile {
      * @throws IOException if the file cannot be read
      */
     JarFile(RandomAccessDataFile file) throws IOException {
-        this(file, "", file, JarFileType.DIRECT);
+        this(file, CentralDirectoryIndex.load(file));
+    }
+
+    /**
+     * Create a new {@link JarFile} backed by the specified file, whose entries and the
+     * entries of its nested jars are looked up in or recorded into the given index.
+     * @param file the root jar file
+     * @param centralDirectoryIndex the index, may be null
+     * @throws IOException if the file cannot be read
+     */
+    JarFile(RandomAccessDataFile file, CentralDirectoryIndex centralDirectoryIndex)
+                                                                                   throws IOException {
+        this(file, "", file, null, JarFileType.DIRECT, centralDirectoryIndex);
     }
 
     /**
@@ -99,23 +128,47 @@ public class JarFile extends java.util.jar.JarFile {
      * @param pathFromRoot the name of this file
      * @param data the underlying data
      * @param type the type of the jar file
+     * @param centralDirectoryIndex the index of the root jar file, may be null
      * @throws IOException if the file cannot be read
      */
     private JarFile(RandomAccessDataFile rootFile, String pathFromRoot, RandomAccessData data,
-                    JarFileType type) throws IOException {
-        this(rootFile, pathFromRoot, data, null, type);
+                    JarFileType type, CentralDirectoryIndex centralDirectoryIndex)
+                                                                                  throws IOException {
+        this(rootFile, pathFromRoot, data, null, type, centralDirectoryIndex);
     }
 
     private JarFile(RandomAccessDataFile rootFile, String pathFromRoot, RandomAccessData data,
-                    JarEntryFilter filter, JarFileType type) throws IOException {
+                    JarEntryFilter filter, JarFileType type,
+                    CentralDirectoryIndex centralDirectoryIndex) throws IOException {
         super(rootFile.getFile());
         this.rootFile = rootFile;
         this.pathFromRoot = pathFromRoot;
+        this.centralDirectoryIndex = centralDirectoryIndex;
+        this.entries = new JarFileEntries(this, filter);
+        this.data = (filter == null && centralDirectoryIndex != null) ? loadIndexed(data) : parse(
+            data, filter);
+        this.type = type;
+    }
+
+    private RandomAccessData parse(RandomAccessData data, JarEntryFilter filter) throws IOException {
         CentralDirectoryParser parser = new CentralDirectoryParser();
-        this.entries = parser.addVisitor(new JarFileEntries(this, filter));
+        parser.addVisitor(this.entries);
         parser.addVisitor(centralDirectoryVisitor());
-        this.data = parser.parse(data, filter == null);
-        this.type = type;
+        return parser.parse(data, filter == null);
+    }
+
+    private RandomAccessData loadIndexed(RandomAccessData data) throws IOException {
+        CentralDirectoryEndRecord endRecord = new CentralDirectoryEndRecord(data);
+        CentralDirectoryIndex.Section section = this.centralDirectoryIndex.getSection(
+            this.pathFromRoot, data.getSize(), endRecord);
+        if (section != null) {
+            this.signed = section.isSigned();
+            return this.entries.load(data, endRecord, section);
+        }
+        RandomAccessData archiveData = parse(data, null);
+        this.centralDirectoryIndex.putSection(this.pathFromRoot,
+            this.entries.createSection(data.getSize(), endRecord.getChecksum(), this.signed));
+        return archiveData;
     }
 
     private CentralDirectoryVisitor centralDirectoryVisitor() {
@@ -149,26 +202,70 @@ public class JarFile extends java.util.jar.JarFile {
         return this.data;
     }
 
+    JarFileEntries getEntries() {
+        return this.entries;
+    }
+
     @Override
     public Manifest getManifest() throws IOException {
-        Manifest manifest = (this.manifest == null ? null : this.manifest.get());
+        Manifest manifest = this.manifest;
         if (manifest == null) {
-            if (this.type == JarFileType.NESTED_DIRECTORY) {
-                manifest = new JarFile(this.getRootJarFile()).getManifest();
-            } else {
-                InputStream inputStream = getInputStream(MANIFEST_NAME, ResourceAccess.ONCE);
-                if (inputStream == null) {
-                    return null;
-                }
-                try {
-                    manifest = new Manifest(inputStream);
-                } finally {
-                    inputStream.close();
-                }
+            // nested directories share the manifest of the root jar file
+            String path = (this.type == JarFileType.NESTED_DIRECTORY) ? "" : this.pathFromRoot;
+            manifest = ManifestCache.get(this.rootFile, path);
+            if (manifest == null) {
+                manifest = readManifest();
+                ManifestCache.put(this.rootFile, path, manifest);
             }
-            this.manifest = new SoftReference<>(manifest);
+            this.manifest = manifest;
+        }
+        return (manifest == ManifestCache.NO_MANIFEST ? null : manifest);
+    }
+
+    private Manifest readManifest() throws IOException {
+        if (this.type == JarFileType.NESTED_DIRECTORY) {
+            Manifest manifest = getRootView().getManifest();
+            return (manifest == null ? ManifestCache.NO_MANIFEST : manifest);
+        }
+        InputStream inputStream = getInputStream(MANIFEST_NAME, ResourceAccess.ONCE);
+        if (inputStream == null) {
+            return ManifestCache.NO_MANIFEST;
+        }
+        try {
+            return new Manifest(inputStream);
+        } finally {
+            inputStream.close();
         }
-        return manifest;
+    }
+
+    /**
+     * Return the root jar file this nested directory is opened from, or else a view of the
+     * root data holding its manifest entry only. The view shares the data of the root jar
+     * file, it neither loads the index nor has to be closed.
+     */
+    private JarFile getRootView() throws IOException {
+        if (this.parent != null && this.parent.type == JarFileType.DIRECT) {
+            return this.parent;
+        }
+        JarEntryFilter filter = new JarEntryFilter() {
+
+            @Override
+            public AsciiBytes apply(AsciiBytes name) {
+                return (name.equals(MANIFEST) ? name : null);
+            }
+
+        };
+        return new JarFile(this.rootFile, "", this.rootFile, filter, JarFileType.DIRECT, null);
+    }
+
+    /**
+     * Drop the cached manifests of the given root jar file and of the jars nested in it,
+     * they are read again by jar files opened afterwards.
+     * @param rootFile the root jar file
+     * @return true if manifests were cached
+     */
+    public static boolean invalidateManifests(File rootFile) {
+        return ManifestCache.invalidate(rootFile);
     }
 
     @Override
@@ -225,7 +322,7 @@ public class JarFile extends java.util.jar.JarFile {
      * @return a {@link JarFile} for the entry
      * @throws IOException if the nested jar file cannot be read
      */
-    public synchronized JarFile getNestedJarFile(final ZipEntry entry) throws IOException {
+    public JarFile getNestedJarFile(final ZipEntry entry) throws IOException {
         return getNestedJarFile((JarEntry) entry);
     }
 
@@ -235,7 +332,8 @@ public class JarFile extends java.util.jar.JarFile {
      * @return a {@link JarFile} for the entry
      * @throws IOException if the nested jar file cannot be read
      */
-    public synchronized JarFile getNestedJarFile(JarEntry entry) throws IOException {
+    public JarFile getNestedJarFile(JarEntry entry) throws IOException {
+        // not synchronized, nested jar files of the same jar may be opened concurrently
         try {
             return createJarFileFromEntry(entry);
         } catch (Exception ex) {
@@ -263,9 +361,13 @@ public class JarFile extends java.util.jar.JarFile {
             }
 
         };
-        return new JarFile(this.rootFile, this.pathFromRoot + "!/"
-                                          + entry.getName().substring(0, sourceName.length() - 1),
-            this.data, filter, JarFileType.NESTED_DIRECTORY);
+        JarFile jarFile = new JarFile(this.rootFile, this.pathFromRoot
+                                                     + "!/"
+                                                     + entry.getName().substring(0,
+                                                         sourceName.length() - 1), this.data,
+            filter, JarFileType.NESTED_DIRECTORY, this.centralDirectoryIndex);
+        jarFile.parent = this;
+        return jarFile;
     }
 
     private JarFile createJarFileFromFileEntry(JarEntry entry) throws IOException {
@@ -278,7 +380,7 @@ public class JarFile extends java.util.jar.JarFile {
         }
         RandomAccessData entryData = this.entries.getEntryData(entry.getName());
         return new JarFile(this.rootFile, this.pathFromRoot + "!/" + entry.getName(), entryData,
-            JarFileType.NESTED_JAR);
+            JarFileType.NESTED_JAR, this.centralDirectoryIndex);
     }
 
     @Override
@@ -357,6 +459,53 @@ public class JarFile extends java.util.jar.JarFile {
 
     public void clearCache() {
         this.entries.clearCache();
+        JarUrlCache urlCache = this.urlCache;
+        if (urlCache != null) {
+            urlCache.clear();
+        }
+    }
+
+    /**
+     * Return the nested {@link JarFile} of the given entry, which is opened once and then
+     * shared by all urls resolved through this jar file.
+     * @param entry the entry of the nested jar file
+     * @return the nested jar file
+     * @throws IOException if the nested jar file cannot be read
+     */
+    JarFile getSharedNestedJarFile(JarEntry entry) throws IOException {
+        JarFile jarFile = this.nestedJarFiles.get(entry.getName());
+        if (jarFile == null) {
+            jarFile = getNestedJarFile(entry);
+            JarFile existing = this.nestedJarFiles.putIfAbsent(entry.getName(), jarFile);
+            jarFile = (existing != null ? existing : jarFile);
+        }
+        return jarFile;
+    }
+
+    JarUrlCache getUrlCache() {
+        JarUrlCache urlCache = this.urlCache;
+        if (urlCache == null) {
+            // racing threads may each create one, the lost one only costs cache misses
+            urlCache = new JarUrlCache();
+            this.urlCache = urlCache;
+        }
+        return urlCache;
+    }
+
+    /**
+     * Return the number of entry lookups served by the entry cache.
+     * @return the hit count
+     */
+    public long getEntryCacheHitCount() {
+        return this.entries.getEntryCacheHitCount();
+    }
+
+    /**
+     * Return the number of entry lookups which had to parse the central directory.
+     * @return the miss count
+     */
+    public long getEntryCacheMissCount() {
+        return this.entries.getEntryCacheMissCount();
     }
 
     protected String getPathFromRoot() {
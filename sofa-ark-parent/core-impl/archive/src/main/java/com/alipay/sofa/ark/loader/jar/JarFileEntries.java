@@ -39,42 +39,27 @@ import java.util.zip.ZipEntry;
  */
 public class JarFileEntries implements CentralDirectoryVisitor, Iterable<JarEntry> {
 
-    private static final long              LOCAL_FILE_HEADER_SIZE = 30;
+    private static final long        LOCAL_FILE_HEADER_SIZE = 30;
 
-    private static final String            SLASH                  = "/";
+    private static final String      SLASH                  = "/";
 
-    private static final String            NO_SUFFIX              = "";
+    private static final String      NO_SUFFIX              = "";
 
-    protected static final int             ENTRY_CACHE_SIZE       = 25;
+    private final JarFile            jarFile;
 
-    private final JarFile                  jarFile;
+    private final JarEntryFilter     filter;
 
-    private final JarEntryFilter           filter;
+    private RandomAccessData         centralDirectoryData;
 
-    private RandomAccessData               centralDirectoryData;
+    private int                      size;
 
-    private int                            size;
+    private int[]                    hashCodes;
 
-    private int[]                          hashCodes;
+    private int[]                    centralDirectoryOffsets;
 
-    private int[]                          centralDirectoryOffsets;
+    private int[]                    positions;
 
-    private int[]                          positions;
-
-    private final Map<Integer, FileHeader> entriesCache           = Collections
-                                                                      .synchronizedMap(new LinkedHashMap<Integer, FileHeader>(
-                                                                          16, 0.75f, true) {
-
-                                                                          @Override
-                                                                          protected boolean removeEldestEntry(Map.Entry<Integer, FileHeader> eldest) {
-                                                                              if (JarFileEntries.this.jarFile
-                                                                                  .isSigned()) {
-                                                                                  return false;
-                                                                              }
-                                                                              return size() >= ENTRY_CACHE_SIZE;
-                                                                          }
-
-                                                                      });
+    private volatile FileHeaderCache entriesCache           = new FileHeaderCache(0);
 
     public JarFileEntries(JarFile jarFile, JarEntryFilter filter) {
         this.jarFile = jarFile;
@@ -114,6 +99,42 @@ public class JarFileEntries implements CentralDirectoryVisitor, Iterable<JarEntr
         for (int i = 0; i < this.size; i++) {
             this.positions[positions[i]] = i;
         }
+        this.entriesCache = FileHeaderCache.create(this.size, this.jarFile.isSigned());
+    }
+
+    /**
+     * Load the entries from an index instead of parsing the central directory.
+     * @param data the source data
+     * @param endRecord the end of central directory record of the source data
+     * @param section the indexed entries
+     * @return the actual archive data without any prefix bytes
+     */
+    RandomAccessData load(RandomAccessData data, CentralDirectoryEndRecord endRecord,
+                          CentralDirectoryIndex.Section section) {
+        long startOfArchive = endRecord.getStartOfArchive(data);
+        if (startOfArchive != 0) {
+            data = data.getSubsection(startOfArchive, data.getSize() - startOfArchive);
+        }
+        this.centralDirectoryData = endRecord.getCentralDirectory(data);
+        this.hashCodes = section.getHashCodes();
+        this.centralDirectoryOffsets = section.getCentralDirectoryOffsets();
+        this.positions = section.getPositions();
+        this.size = this.hashCodes.length;
+        this.entriesCache = FileHeaderCache.create(this.size, this.jarFile.isSigned());
+        return data;
+    }
+
+    /**
+     * Create the index of the parsed entries, only called for unfiltered entries so the
+     * arrays are full, they are shared as they are never modified once sorted.
+     * @param dataSize size of the source data
+     * @param checksum checksum of the end of central directory record
+     * @param signed whether the jar is signed
+     * @return the indexed entries
+     */
+    CentralDirectoryIndex.Section createSection(long dataSize, long checksum, boolean signed) {
+        return new CentralDirectoryIndex.Section(dataSize, checksum, signed, this.hashCodes,
+            this.centralDirectoryOffsets, this.positions);
     }
 
     private void sort(int left, int right) {
@@ -161,6 +182,39 @@ public class JarFileEntries implements CentralDirectoryVisitor, Iterable<JarEntr
         return new EntryIterator();
     }
 
+    /**
+     * Return the number of entries, whose name hash codes are sorted in ascending order.
+     * @return the number of entries
+     */
+    int getSize() {
+        return this.size;
+    }
+
+    /**
+     * Return the name hash code of the entry at the given sorted index.
+     * @param index the sorted index
+     * @return the name hash code
+     */
+    int getHashCode(int index) {
+        return this.hashCodes[index];
+    }
+
+    /**
+     * Return the number of entry lookups served by the entry cache.
+     * @return the hit count
+     */
+    public long getEntryCacheHitCount() {
+        return this.entriesCache.getHitCount();
+    }
+
+    /**
+     * Return the number of entry lookups which had to parse the central directory.
+     * @return the miss count
+     */
+    public long getEntryCacheMissCount() {
+        return this.entriesCache.getMissCount();
+    }
+
     public boolean containsEntry(String name) {
         return getEntry(name, FileHeader.class, true) != null;
     }
@@ -180,7 +234,8 @@ public class JarFileEntries implements CentralDirectoryVisitor, Iterable<JarEntr
         }
         InputStream inputStream = getEntryData(entry).getInputStream(access);
         if (entry.getMethod() == ZipEntry.DEFLATED) {
-            inputStream = new ZipInflaterInputStream(inputStream, (int) entry.getSize());
+            inputStream = new ZipInflaterInputStream(inputStream, (int) Math.min(entry.getSize(),
+                Integer.MAX_VALUE));
         }
         return inputStream;
     }
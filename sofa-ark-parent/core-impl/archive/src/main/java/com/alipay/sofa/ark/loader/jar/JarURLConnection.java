@@ -76,11 +76,17 @@ final public class JarURLConnection extends java.net.JarURLConnection {
 
     private JarURLConnection(URL url, JarFile jarFile, JarEntryName jarEntryName)
                                                                                  throws IOException {
+        this(url, jarFile, jarEntryName, null);
+    }
+
+    private JarURLConnection(URL url, JarFile jarFile, JarEntryName jarEntryName, JarEntry jarEntry)
+                                                                                                    throws IOException {
         // What we pass to super is ultimately ignored
         super(EMPTY_JAR_URL);
         this.url = url;
         this.jarFile = jarFile;
         this.jarEntryName = jarEntryName;
+        this.jarEntry = jarEntry;
     }
 
     @Override
@@ -186,10 +192,10 @@ final public class JarURLConnection extends java.net.JarURLConnection {
         }
         try {
             if (this.jarEntryName.isEmpty()) {
-                return this.jarFile.size();
+                return this.jarFile.getData().getSize();
             }
             JarEntry entry = getJarEntry();
-            return (entry == null ? -1 : (int) entry.getSize());
+            return (entry == null ? -1 : entry.getSize());
         } catch (IOException ex) {
             return -1;
         }
@@ -236,6 +242,15 @@ final public class JarURLConnection extends java.net.JarURLConnection {
     }
 
     static JarURLConnection get(URL url, JarFile jarFile) throws IOException {
+        // urls which resolved before are served by the cache of the jar file, without
+        // parsing the spec or looking up nested jar files and entries again
+        String file = url.getFile();
+        JarUrlCache urlCache = jarFile.getUrlCache();
+        JarUrlCache.Resolution resolution = urlCache.get(file);
+        if (resolution != null) {
+            return new JarURLConnection(url, resolution.getJarFile(), resolution.getJarEntryName(),
+                resolution.getJarEntry());
+        }
         String spec = extractFullSpec(url, jarFile.getPathFromRoot());
         int separator;
         int index = 0;
@@ -245,16 +260,22 @@ final public class JarURLConnection extends java.net.JarURLConnection {
             if (jarEntry == null) {
                 return JarURLConnection.notFound(jarFile, JarEntryName.get(entryName));
             }
-            jarFile = jarFile.getNestedJarFile(jarEntry);
+            jarFile = jarFile.getSharedNestedJarFile(jarEntry);
             index = separator + SEPARATOR.length();
         }
         JarEntryName jarEntryName = JarEntryName.get(spec, index);
-        if (Boolean.TRUE.equals(useFastExceptions.get())) {
-            if (!jarEntryName.isEmpty() && !jarFile.containsEntry(jarEntryName.toString())) {
-                return NOT_FOUND_CONNECTION;
+        JarEntry jarEntry = null;
+        if (!jarEntryName.isEmpty()) {
+            jarEntry = jarFile.getJarEntry(jarEntryName.toString());
+            if (jarEntry == null) {
+                if (Boolean.TRUE.equals(useFastExceptions.get())) {
+                    return NOT_FOUND_CONNECTION;
+                }
+                return new JarURLConnection(url, jarFile, jarEntryName);
             }
         }
-        return new JarURLConnection(url, jarFile, jarEntryName);
+        urlCache.put(new JarUrlCache.Resolution(file, jarFile, jarEntryName, jarEntry));
+        return new JarURLConnection(url, jarFile, jarEntryName, jarEntry);
     }
 
     private static String extractFullSpec(URL url, String pathFromRoot) {
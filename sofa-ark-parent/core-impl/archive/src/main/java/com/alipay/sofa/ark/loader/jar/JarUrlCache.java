@@ -0,0 +1,89 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alipay.sofa.ark.loader.jar;
+
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Lock free cache of a {@link JarFile} from the file part of jar urls to what they resolve
+ * to, i.e. the possibly nested jar file and the entry. Like {@link FileHeaderCache} it is
+ * direct mapped, keyed by the hash code of the url file, so that a hit is a single array
+ * access and no allocation.
+ *
+ * @author agent
+ * @since 0.6.0
+ */
+class JarUrlCache {
+
+    private static final int                       CAPACITY = 64;
+
+    private final AtomicReferenceArray<Resolution> slots    = new AtomicReferenceArray<>(CAPACITY);
+
+    Resolution get(String file) {
+        Resolution resolution = this.slots.get(file.hashCode() & (CAPACITY - 1));
+        if (resolution != null && resolution.file.equals(file)) {
+            return resolution;
+        }
+        return null;
+    }
+
+    void put(Resolution resolution) {
+        this.slots.set(resolution.file.hashCode() & (CAPACITY - 1), resolution);
+    }
+
+    void clear() {
+        for (int i = 0; i < CAPACITY; i++) {
+            this.slots.set(i, null);
+        }
+    }
+
+    /**
+     * Resolved jar url, the entry is null if the url refers to the jar file itself.
+     */
+    static final class Resolution {
+
+        private final String                        file;
+
+        private final JarFile                       jarFile;
+
+        private final JarURLConnection.JarEntryName jarEntryName;
+
+        private final JarEntry                      jarEntry;
+
+        Resolution(String file, JarFile jarFile, JarURLConnection.JarEntryName jarEntryName,
+                   JarEntry jarEntry) {
+            this.file = file;
+            this.jarFile = jarFile;
+            this.jarEntryName = jarEntryName;
+            this.jarEntry = jarEntry;
+        }
+
+        JarFile getJarFile() {
+            return this.jarFile;
+        }
+
+        JarURLConnection.JarEntryName getJarEntryName() {
+            return this.jarEntryName;
+        }
+
+        JarEntry getJarEntry() {
+            return this.jarEntry;
+        }
+
+    }
+
+}
@@ -0,0 +1,103 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alipay.sofa.ark.loader.jar;
+
+import com.alipay.sofa.ark.loader.data.RandomAccessDataFile;
+
+import java.io.File;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.jar.Manifest;
+
+/**
+ * Manifests of the jar files opened from a root jar file, strongly held and keyed by the
+ * root file and the path of the jar from the root, so that they survive garbage collection
+ * and are shared by every {@link JarFile} instance of the same jar, in particular by the
+ * nested directory jar files which all share the manifest of the root jar file.
+ * <p>
+ * Manifests of a root jar file are only dropped by {@link #invalidate(File)}, e.g. when
+ * the root jar file is released by {@link Handler#releaseRootJarFile(java.net.URL)}, or
+ * when a root jar file of another size or last modified time is opened at the same path.
+ *
+ * @author agent
+ * @since 0.6.0
+ */
+final class ManifestCache {
+
+    /**
+     * Placeholder of jars without manifest, so that they are not looked up again.
+     */
+    static final Manifest                                       NO_MANIFEST = new Manifest();
+
+    private static final ConcurrentHashMap<File, RootManifests> manifests   = new ConcurrentHashMap<>();
+
+    private ManifestCache() {
+    }
+
+    static Manifest get(RandomAccessDataFile rootFile, String pathFromRoot) {
+        RootManifests rootManifests = manifests.get(rootFile.getFile().getAbsoluteFile());
+        if (rootManifests == null || !rootManifests.matches(rootFile)) {
+            return null;
+        }
+        return rootManifests.manifests.get(pathFromRoot);
+    }
+
+    static void put(RandomAccessDataFile rootFile, String pathFromRoot, Manifest manifest) {
+        File file = rootFile.getFile().getAbsoluteFile();
+        RootManifests rootManifests = manifests.get(file);
+        // a replaced root jar file drops the previous manifests
+        while (rootManifests == null || !rootManifests.matches(rootFile)) {
+            RootManifests newManifests = new RootManifests(rootFile.getSize(), file.lastModified());
+            if (rootManifests == null ? manifests.putIfAbsent(file, newManifests) == null
+                : manifests.replace(file, rootManifests, newManifests)) {
+                rootManifests = newManifests;
+            } else {
+                rootManifests = manifests.get(file);
+            }
+        }
+        rootManifests.manifests.put(pathFromRoot, manifest);
+    }
+
+    /**
+     * Drop the manifests of the given root jar file
+     * @param rootFile the root jar file
+     * @return true if manifests were cached
+     */
+    static boolean invalidate(File rootFile) {
+        return manifests.remove(rootFile.getAbsoluteFile()) != null;
+    }
+
+    private static final class RootManifests {
+
+        private final long                                length;
+
+        private final long                                lastModified;
+
+        private final ConcurrentHashMap<String, Manifest> manifests = new ConcurrentHashMap<>();
+
+        RootManifests(long length, long lastModified) {
+            this.length = length;
+            this.lastModified = lastModified;
+        }
+
+        boolean matches(RandomAccessDataFile rootFile) {
+            return this.length == rootFile.getSize()
+                   && this.lastModified == rootFile.getFile().lastModified();
+        }
+
+    }
+
+}
@@ -19,12 +19,15 @@ package com.alipay.sofa.ark.loader.jar;
 import java.io.EOFException;
 import java.io.IOException;
 import java.io.InputStream;
-import java.util.zip.Inflater;
 import java.util.zip.InflaterInputStream;
 
 /**
  * {@link InflaterInputStream} that supports the writing of an extra "dummy" byte (which
  * is required with JDK 6) and returns accurate available() results.
+ * <p>
+ * The inflater is taken from the {@link InflaterPool} and returned to it, exactly once,
+ * when the stream is closed. Small entries get an input buffer sized after the entry,
+ * only large entries, or entries of unknown size, share the pooled input buffers.
  *
  * @author Phillip Webb
  */
@@ -34,11 +37,34 @@ public class ZipInflaterInputStream extends InflaterInputStream {
 
     private int     available;
 
+    private boolean released;
+
     ZipInflaterInputStream(InputStream inputStream, int size) {
-        super(inputStream, new Inflater(true), getInflaterBufferSize(size));
+        super(inputStream, InflaterPool.acquireInflater(), 1);
+        int bufferSize = getInflaterBufferSize(size);
+        this.buf = (bufferSize < InflaterPool.BUFFER_SIZE) ? new byte[bufferSize] : InflaterPool
+            .acquireBuffer();
         this.available = size;
     }
 
+    @Override
+    public void close() throws IOException {
+        // if the source stream fails to close this stream stays open, so the inflater
+        // is left to finalization rather than shared with another stream
+        super.close();
+        release();
+    }
+
+    private synchronized void release() {
+        if (!this.released) {
+            this.released = true;
+            InflaterPool.releaseInflater(this.inf);
+            if (this.buf.length == InflaterPool.BUFFER_SIZE) {
+                InflaterPool.releaseBuffer(this.buf);
+            }
+        }
+    }
+
     @Override
     public int available() throws IOException {
         if (this.available < 0) {
@@ -73,9 +99,8 @@ public class ZipInflaterInputStream extends InflaterInputStream {
 
     private static int getInflaterBufferSize(long size) {
         size += 2; // inflater likes some space
-        size = (size > 65536 ? 8192 : size);
-        size = (size <= 0 ? 4096 : size);
-        return (int) size;
+        return (size <= 2 || size > InflaterPool.BUFFER_SIZE) ? InflaterPool.BUFFER_SIZE
+            : (int) size;
     }
 
 }
@@ -0,0 +1,100 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alipay.sofa.ark.bootstrap;
+
+import com.alipay.sofa.ark.loader.archive.JarFileArchive;
+import com.alipay.sofa.ark.loader.test.base.BaseTest;
+import com.alipay.sofa.ark.spi.archive.Archive;
+import com.alipay.sofa.ark.spi.constant.Constants;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.net.URL;
+import java.util.List;
+
+/**
+ * @author agent
+ * @since 0.6.0
+ */
+public class ClassDataSharingTest extends BaseTest {
+
+    private File cdsDirectory;
+
+    @Before
+    public void before() {
+        cdsDirectory = new File(getWorkspace(), "cds");
+        System.setProperty(Constants.ARK_CDS_DIRECTORY, cdsDirectory.getAbsolutePath());
+        System.setProperty(Constants.ARK_UNPACK_DIRECTORY,
+            new File(getWorkspace(), "cds-unpack").getAbsolutePath());
+    }
+
+    @After
+    public void after() {
+        System.clearProperty(Constants.ARK_CDS_MODE);
+        System.clearProperty(Constants.ARK_CDS_DIRECTORY);
+        System.clearProperty(Constants.ARK_UNPACK_DIRECTORY);
+    }
+
+    @Test
+    public void testMode() {
+        Assert.assertFalse(ClassDataSharing.isEnabled());
+        System.setProperty(Constants.ARK_CDS_MODE, "unknown");
+        Assert.assertNull(ClassDataSharing.getMode());
+
+        File archiveFile = ClassDataSharing.getArchiveFile(getTempDemoZip());
+        Assert.assertEquals(cdsDirectory, archiveFile.getParentFile());
+        Assert.assertNull(ClassDataSharing.getJvmOption(archiveFile));
+
+        System.setProperty(Constants.ARK_CDS_MODE, Constants.ARK_CDS_MODE_DUMP);
+        Assert.assertEquals("-XX:ArchiveClassesAtExit=" + archiveFile.getAbsolutePath(),
+            ClassDataSharing.getJvmOption(archiveFile));
+        System.setProperty(Constants.ARK_CDS_MODE, Constants.ARK_CDS_MODE_SHARE);
+        Assert.assertEquals("-XX:SharedArchiveFile=" + archiveFile.getAbsolutePath(),
+            ClassDataSharing.getJvmOption(archiveFile));
+    }
+
+    @Test
+    public void testUnpackNestedArchive() throws Exception {
+        System.setProperty(Constants.ARK_CDS_MODE, Constants.ARK_CDS_MODE_DUMP);
+        URL url = getNestedJunitArchive().getUrl();
+        Assert.assertEquals("file", url.getProtocol());
+        File unpackedFile = new File(url.toURI());
+        Assert.assertEquals(UnpackCache.getDirectory(), unpackedFile.getParentFile()
+            .getParentFile());
+
+        // unpacked jar is reused by the next launch
+        long lastModified = unpackedFile.lastModified();
+        Assert.assertEquals(url, getNestedJunitArchive().getUrl());
+        Assert.assertEquals(lastModified, unpackedFile.lastModified());
+    }
+
+    private Archive getNestedJunitArchive() throws Exception {
+        List<Archive> archives = new JarFileArchive(getTempDemoZip())
+            .getNestedArchives(new Archive.EntryFilter() {
+                @Override
+                public boolean matches(Archive.Entry entry) {
+                    return entry.getName().equals("lib/junit-4.12.jar");
+                }
+            });
+        Assert.assertEquals(1, archives.size());
+        return archives.get(0);
+    }
+
+}
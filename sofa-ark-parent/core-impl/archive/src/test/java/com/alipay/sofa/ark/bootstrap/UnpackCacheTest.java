@@ -0,0 +1,253 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alipay.sofa.ark.bootstrap;
+
+import com.alipay.sofa.ark.loader.archive.JarFileArchive;
+import com.alipay.sofa.ark.loader.test.base.BaseTest;
+import com.alipay.sofa.ark.spi.archive.Archive;
+import com.alipay.sofa.ark.spi.constant.Constants;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.net.URL;
+import java.nio.file.Files;
+import java.util.List;
+import java.util.jar.JarOutputStream;
+import java.util.zip.CRC32;
+import java.util.zip.ZipEntry;
+
+/**
+ * @author agent
+ * @since 0.6.0
+ */
+public class UnpackCacheTest extends BaseTest {
+
+    private static final int LIBRARY_COUNT = 2;
+
+    private File             unpackDirectory;
+
+    @Before
+    public void before() {
+        unpackDirectory = new File(getWorkspace(), "unpack");
+        System.setProperty(Constants.ARK_UNPACK_DIRECTORY, unpackDirectory.getAbsolutePath());
+        System.setProperty(Constants.ARCHIVE_PARALLEL_OPEN_THREADS, "2");
+    }
+
+    @After
+    public void after() {
+        System.clearProperty(Constants.ARK_UNPACK_DIRECTORY);
+        System.clearProperty(Constants.ARCHIVE_PARALLEL_OPEN_THREADS);
+        System.clearProperty(Constants.ARK_EXPLODED_MODE_ENABLE);
+    }
+
+    @Test
+    public void testUnpackNestedLibraries() throws Exception {
+        File jar = new File(getWorkspace(), "unpack-fat-jar.jar");
+        String sha1 = generateUnpackJar(jar, null);
+        List<Archive> archives = getNestedLibraries(jar);
+        Assert.assertEquals(LIBRARY_COUNT, archives.size());
+        for (int i = 0; i < archives.size(); i++) {
+            URL url = archives.get(i).getUrl();
+            Assert.assertEquals("file", url.getProtocol());
+            File unpackedFile = new File(url.toURI());
+            Assert.assertEquals(new File(new File(unpackDirectory, sha1), "lib-" + i + ".jar"),
+                unpackedFile);
+            Assert.assertTrue(new File(unpackedFile.getPath() + ".unpacked").isFile());
+            Assert.assertEquals("JUnit", archives.get(i).getManifest().getMainAttributes()
+                .getValue("Implementation-Title"));
+        }
+
+        // folders in use are kept by eviction, whatever their age
+        File folder = new File(unpackDirectory, sha1);
+        Assert.assertTrue(folder.setLastModified(0));
+        UnpackCache.evict(unpackDirectory, 0);
+        Assert.assertTrue(folder.isDirectory());
+
+        // unpacked libraries are reused by another executable jar bundling them
+        File unpackedFile = new File(archives.get(0).getUrl().toURI());
+        Assert.assertTrue(unpackedFile.setLastModified(10000));
+        File otherJar = new File(getWorkspace(), "other-unpack-fat-jar.jar");
+        generateUnpackJar(otherJar, null);
+        Assert.assertEquals(archives.get(0).getUrl(), getNestedLibraries(otherJar).get(0).getUrl());
+        Assert.assertEquals(10000, unpackedFile.lastModified());
+    }
+
+    @Test
+    public void testCorruptedLibraryUnpackedAgain() throws Exception {
+        // a file of the right size left by another process is not trusted
+        File jar = new File(getWorkspace(), "corrupted-fat-jar.jar");
+        System.setProperty(Constants.ARK_UNPACK_DIRECTORY,
+            new File(unpackDirectory, "corrupted").getAbsolutePath());
+        String sha1 = generateUnpackJar(jar, null);
+        File unpackedFile = new File(new File(UnpackCache.getDirectory(), sha1), "lib-0.jar");
+        Assert.assertTrue(unpackedFile.getParentFile().mkdirs());
+        byte[] corrupted = new byte[readJunitJar().length];
+        Files.write(unpackedFile.toPath(), corrupted);
+        Files.write(new File(unpackedFile.getPath() + ".unpacked").toPath(), new byte[0]);
+
+        URL url = getNestedLibraries(jar).get(0).getUrl();
+        Assert.assertEquals(unpackedFile, new File(url.toURI()));
+        Assert.assertFalse(compareByteArray(corrupted, Files.readAllBytes(unpackedFile.toPath())));
+    }
+
+    @Test
+    public void testExplodedMode() throws Exception {
+        File jar = new File(getWorkspace(), "exploded-fat-jar.jar");
+        String sha1 = generateJar(jar, "SHA1:", null);
+        Assert.assertEquals("jar", getNestedLibraries(jar).get(0).getUrl().getProtocol());
+
+        System.setProperty(Constants.ARK_EXPLODED_MODE_ENABLE, "true");
+        URL url = getNestedLibraries(jar).get(0).getUrl();
+        Assert.assertEquals("file", url.getProtocol());
+        Assert.assertEquals(new File(new File(unpackDirectory, sha1), "lib-0.jar"),
+            new File(url.toURI()));
+
+        // jars packaged without a SHA-1 stay nested
+        File legacyJar = new File(getWorkspace(), "legacy-fat-jar.jar");
+        generateJar(legacyJar, "", null);
+        Assert.assertEquals("jar", getNestedLibraries(legacyJar).get(0).getUrl().getProtocol());
+    }
+
+    @Test
+    public void testRecordedSha1Mismatch() throws Exception {
+        File jar = new File(getWorkspace(), "mismatch-fat-jar.jar");
+        generateUnpackJar(jar, "0123456789abcdef0123456789abcdef01234567");
+        try {
+            getNestedLibraries(jar);
+            Assert.fail();
+        } catch (IOException ex) {
+            Assert.assertTrue(ex.getMessage().contains("SHA-1 mismatch"));
+        }
+    }
+
+    @Test
+    public void testUnpackPrivatelyWhenLockedByAnotherProcess() throws Exception {
+        File jar = new File(getWorkspace(), "locked-fat-jar.jar");
+        System.setProperty(Constants.ARK_UNPACK_DIRECTORY,
+            new File(unpackDirectory, "locked").getAbsolutePath());
+        String sha1 = generateUnpackJar(jar, null);
+        File folder = new File(UnpackCache.getDirectory(), sha1);
+        Assert.assertTrue(folder.mkdirs());
+        // an invalid folder which another process keeps using
+        Files.write(new File(folder, "lib-0.jar").toPath(), CONSTANT_BYTE);
+        Process process = new ProcessBuilder(
+            new File(System.getProperty("java.home"), "bin/java").getPath(), "-cp",
+            System.getProperty("java.class.path"), SharedLockHolder.class.getName(), new File(
+                folder, ".lock").getPath()).start();
+        try {
+            Assert.assertEquals('L', process.getInputStream().read());
+            URL url = getNestedLibraries(jar).get(0).getUrl();
+            File unpackedFile = new File(url.toURI());
+            Assert.assertEquals("lib-0.jar", unpackedFile.getName());
+            Assert.assertTrue(unpackedFile.getParentFile().getName().startsWith(sha1 + "-"));
+            Assert.assertTrue(compareByteArray(readJunitJar(),
+                Files.readAllBytes(unpackedFile.toPath())));
+            Assert.assertEquals(url, getNestedLibraries(jar).get(0).getUrl());
+        } finally {
+            process.destroy();
+        }
+    }
+
+    /**
+     * Holds a shared lock on the given file until its input is closed
+     */
+    public static class SharedLockHolder {
+
+        public static void main(String[] args) throws IOException {
+            RandomAccessFile lockFile = new RandomAccessFile(args[0], "rw");
+            lockFile.getChannel().lock(0, Long.MAX_VALUE, true);
+            System.out.print('L');
+            System.out.flush();
+            while (System.in.read() != -1) {
+                // wait
+            }
+        }
+
+    }
+
+    @Test
+    public void testEvict() throws IOException {
+        File evictDirectory = new File(getWorkspace(), "evict");
+        File stale = createFolder(evictDirectory, "stale", 0);
+        File recent = createFolder(evictDirectory, "recent", System.currentTimeMillis());
+
+        UnpackCache.evict(evictDirectory, Long.MAX_VALUE);
+        Assert.assertTrue(stale.isDirectory());
+
+        UnpackCache.evict(evictDirectory, 0);
+        Assert.assertFalse(stale.exists());
+        Assert.assertTrue(recent.isDirectory());
+    }
+
+    private File createFolder(File directory, String name, long lastModified) throws IOException {
+        File folder = new File(directory, name);
+        Assert.assertTrue(folder.mkdirs() || folder.isDirectory());
+        Files.write(new File(folder, name + ".jar").toPath(), CONSTANT_BYTE);
+        Assert.assertTrue(folder.setLastModified(lastModified));
+        return folder;
+    }
+
+    private List<Archive> getNestedLibraries(File jar) throws IOException {
+        return new JarFileArchive(jar).getNestedArchives(new Archive.EntryFilter() {
+            @Override
+            public boolean matches(Archive.Entry entry) {
+                return entry.getName().startsWith("lib/");
+            }
+        });
+    }
+
+    private byte[] readJunitJar() throws IOException {
+        return Files.readAllBytes(new File(UnpackCacheTest.class.getClassLoader()
+            .getResource("junit-4.12.jar").getFile()).toPath());
+    }
+
+    private String generateUnpackJar(File file, String recordedSha1) throws IOException {
+        return generateJar(file, "UNPACK:", recordedSha1);
+    }
+
+    private String generateJar(File file, String marker, String recordedSha1) throws IOException {
+        byte[] content = readJunitJar();
+        String sha1 = UnpackCache.sha1(new ByteArrayInputStream(content));
+        CRC32 crc = new CRC32();
+        crc.update(content);
+        JarOutputStream jos = new JarOutputStream(new FileOutputStream(file));
+        try {
+            for (int i = 0; i < LIBRARY_COUNT; i++) {
+                ZipEntry entry = new ZipEntry("lib/lib-" + i + ".jar");
+                entry.setMethod(ZipEntry.STORED);
+                entry.setSize(content.length);
+                entry.setCrc(crc.getValue());
+                if (!marker.isEmpty()) {
+                    entry.setComment(marker + (recordedSha1 == null ? sha1 : recordedSha1));
+                }
+                jos.putNextEntry(entry);
+                jos.write(content);
+            }
+        } finally {
+            jos.close();
+        }
+        return sha1;
+    }
+
+}
@@ -0,0 +1,177 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alipay.sofa.ark.loader.test;
+
+import com.alipay.sofa.ark.loader.ArchiveLayoutIndex;
+import com.alipay.sofa.ark.loader.ExecutableArkBizJar;
+import com.alipay.sofa.ark.loader.JarPluginArchive;
+import com.alipay.sofa.ark.loader.archive.JarFileArchive;
+import com.alipay.sofa.ark.loader.test.base.BaseTest;
+import com.alipay.sofa.ark.spi.archive.PluginArchive;
+import com.alipay.sofa.ark.spi.constant.Constants;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.jar.JarOutputStream;
+import java.util.zip.CRC32;
+import java.util.zip.ZipEntry;
+
+/**
+ * @author agent
+ * @since 0.6.0
+ */
+public class ExecutableArkBizJarTest extends BaseTest {
+
+    private static final int PLUGIN_COUNT = 16;
+
+    private File             fatJar;
+
+    @Before
+    public void before() throws IOException {
+        fatJar = new File(getWorkspace(), "plugins-fat-jar.jar");
+        generatePluginsFatJar(fatJar);
+    }
+
+    @After
+    public void after() {
+        System.clearProperty(Constants.ARCHIVE_PARALLEL_OPEN_ENABLE);
+        System.clearProperty(Constants.ARCHIVE_PARALLEL_OPEN_THREADS);
+    }
+
+    @Test
+    public void testParallelOpenPluginArchives() throws Exception {
+        List<URL> expected = getPluginUrls();
+        Assert.assertEquals(PLUGIN_COUNT, expected.size());
+
+        System.setProperty(Constants.ARCHIVE_PARALLEL_OPEN_ENABLE, "true");
+        System.setProperty(Constants.ARCHIVE_PARALLEL_OPEN_THREADS, "4");
+        for (int i = 0; i < 3; i++) {
+            Assert.assertEquals(expected, getPluginUrls());
+        }
+    }
+
+    @Test
+    public void testLayoutIndex() throws Exception {
+        byte[] jarContent = readJunitJar();
+        CRC32 crc = new CRC32();
+        crc.update(jarContent);
+        File pluginJar = new File(getWorkspace(), "layout-plugin.jar");
+        JarOutputStream jos = new JarOutputStream(new FileOutputStream(pluginJar));
+        try {
+            jos.putNextEntry(new ZipEntry("com/alipay/sofa/ark/plugin/mark"));
+            jos.putNextEntry(new ZipEntry("conf/"));
+            jos.putNextEntry(new ZipEntry("conf/export.index"));
+            jos.write(CONSTANT_BYTE);
+            jos.putNextEntry(new ZipEntry("lib/"));
+            for (int i = 0; i < 2; i++) {
+                ZipEntry jarEntry = new ZipEntry("lib/lib-" + i + ".jar");
+                jarEntry.setMethod(ZipEntry.STORED);
+                jarEntry.setSize(jarContent.length);
+                jarEntry.setCrc(crc.getValue());
+                jos.putNextEntry(jarEntry);
+                jos.write(jarContent);
+            }
+        } finally {
+            jos.close();
+        }
+
+        JarPluginArchive pluginArchive = new JarPluginArchive(new JarFileArchive(pluginJar));
+        ArchiveLayoutIndex layoutIndex = pluginArchive.getLayoutIndex();
+        Assert.assertEquals(2, layoutIndex.getLibEntries().size());
+        Assert.assertEquals("lib/lib-1.jar", layoutIndex.getLibEntries().get(1).getName());
+        Assert.assertEquals(1, layoutIndex.getConfEntries().size());
+        Assert.assertNull(layoutIndex.getContainerEntry());
+        Assert.assertTrue(pluginArchive.isEntryExist(Constants.ARK_PLUGIN_MARK_ENTRY));
+        Assert.assertFalse(pluginArchive.isEntryExist(Constants.ARK_BIZ_MARK_ENTRY));
+        Assert.assertFalse(pluginArchive.isEntryExist("lib/"));
+
+        URL[] urls = pluginArchive.getUrls();
+        Assert.assertEquals(3, urls.length);
+        Assert.assertEquals(pluginArchive.getUrl(), urls[0]);
+        Assert.assertTrue(urls[2].toString().endsWith("lib/lib-1.jar!/"));
+
+        layoutIndex = new ExecutableArkBizJar(new JarFileArchive(fatJar)).getLayoutIndex();
+        Assert.assertEquals(PLUGIN_COUNT, layoutIndex.getPluginEntries().size());
+        Assert.assertTrue(layoutIndex.getBizEntries().isEmpty());
+        Assert.assertTrue(layoutIndex.getLibEntries().isEmpty());
+        try {
+            // file names of the fat jar are not indexed
+            layoutIndex.isFileExist(Constants.ARK_PLUGIN_MARK_ENTRY);
+            Assert.fail();
+        } catch (IllegalStateException ex) {
+            // expected
+        }
+    }
+
+    private List<URL> getPluginUrls() throws Exception {
+        List<URL> urls = new ArrayList<>();
+        for (PluginArchive pluginArchive : new ExecutableArkBizJar(new JarFileArchive(fatJar))
+            .getPluginArchives()) {
+            Assert.assertEquals("JUnit",
+                pluginArchive.getManifest().getMainAttributes().getValue("Implementation-Title"));
+            urls.add(pluginArchive.getUrl());
+        }
+        return urls;
+    }
+
+    private static void generatePluginsFatJar(File file) throws IOException {
+        byte[] jarContent = readJunitJar();
+        CRC32 crc = new CRC32();
+        crc.update(jarContent);
+        JarOutputStream jos = new JarOutputStream(new FileOutputStream(file));
+        try {
+            jos.putNextEntry(new ZipEntry("SOFA-ARK/plugin/"));
+            for (int i = 0; i < PLUGIN_COUNT; i++) {
+                ZipEntry jarEntry = new ZipEntry("SOFA-ARK/plugin/plugin-" + i + ".jar");
+                jarEntry.setMethod(ZipEntry.STORED);
+                jarEntry.setSize(jarContent.length);
+                jarEntry.setCrc(crc.getValue());
+                jos.putNextEntry(jarEntry);
+                jos.write(jarContent);
+            }
+        } finally {
+            jos.close();
+        }
+    }
+
+    private static byte[] readJunitJar() throws IOException {
+        InputStream inputStream = ExecutableArkBizJarTest.class.getClassLoader()
+            .getResourceAsStream("junit-4.12.jar");
+        try {
+            ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+            byte[] buffer = new byte[4096];
+            int read;
+            while ((read = inputStream.read(buffer)) != -1) {
+                outputStream.write(buffer, 0, read);
+            }
+            return outputStream.toByteArray();
+        } finally {
+            inputStream.close();
+        }
+    }
+
+}
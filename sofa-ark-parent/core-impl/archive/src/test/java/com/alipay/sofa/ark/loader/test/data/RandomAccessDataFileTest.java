@@ -16,9 +16,13 @@
  */
 package com.alipay.sofa.ark.loader.test.data;
 
+import com.alipay.sofa.ark.loader.data.MappedRandomAccessData;
 import com.alipay.sofa.ark.loader.data.RandomAccessData;
 import com.alipay.sofa.ark.loader.data.RandomAccessDataFile;
+import com.alipay.sofa.ark.loader.jar.JarFile;
 import com.alipay.sofa.ark.loader.test.base.BaseTest;
+import com.alipay.sofa.ark.spi.constant.Constants;
+import org.apache.commons.io.IOUtils;
 import org.junit.Assert;
 import org.junit.Test;
 
@@ -87,4 +91,80 @@ public class RandomAccessDataFileTest extends BaseTest {
         }
     }
 
-}
\ No newline at end of file
+    @Test
+    public void testReadAfterCloseAndInterrupt() throws IOException {
+        RandomAccessDataFile testFile = new RandomAccessDataFile(getTempDemoFile());
+        RandomAccessData subData = testFile.getSubsection(4, 4);
+        InputStream is = subData.getInputStream(RandomAccessData.ResourceAccess.ONCE);
+        try {
+            Assert.assertEquals('3', is.read());
+
+            // closed channel is reopened by the next read
+            testFile.close();
+            Assert.assertEquals('3', is.read());
+
+            // interrupted thread neither fails nor closes the channel for others
+            Thread.currentThread().interrupt();
+            try {
+                Assert.assertEquals('4', is.read());
+            } finally {
+                Assert.assertTrue(Thread.interrupted());
+            }
+            Assert.assertEquals('4', is.read());
+            Assert.assertEquals(-1, is.read());
+        } finally {
+            is.close();
+        }
+    }
+
+    @Test
+    public void testMappedSubsection() throws IOException {
+        System.setProperty(Constants.ARK_JAR_MMAP_ENABLE, "true");
+        try {
+            RandomAccessDataFile testFile = new RandomAccessDataFile(getTempDemoFile());
+            RandomAccessData subData = testFile.getSubsection(2, 10).getSubsection(2, 6);
+            Assert.assertTrue(subData instanceof MappedRandomAccessData);
+            Assert.assertEquals(6, subData.getSize());
+
+            InputStream is = subData.getInputStream(RandomAccessData.ResourceAccess.PER_READ);
+            try {
+                Assert.assertEquals('3', is.read());
+                Assert.assertEquals(1, is.skip(1));
+                byte[] bytes = new byte[10];
+                Assert.assertEquals(4, is.read(bytes));
+                Assert.assertEquals("4455", new String(bytes, 0, 4, "UTF-8"));
+                Assert.assertEquals(-1, is.read());
+                Assert.assertEquals(-1, is.read(bytes));
+            } finally {
+                is.close();
+            }
+        } finally {
+            System.clearProperty(Constants.ARK_JAR_MMAP_ENABLE);
+        }
+    }
+
+    @Test
+    public void testMappedJarFile() throws IOException {
+        JarFile jarFile = new JarFile(getTempDemoZip());
+        byte[] expected = IOUtils.toByteArray(jarFile.getInputStream(jarFile
+            .getEntry("lib/junit-4.12.jar")));
+        jarFile.close();
+
+        System.setProperty(Constants.ARK_JAR_MMAP_ENABLE, "true");
+        try {
+            jarFile = new JarFile(getTempDemoZip());
+            JarFile nestedJarFile = jarFile
+                .getNestedJarFile(jarFile.getEntry("lib/junit-4.12.jar"));
+            Assert
+                .assertTrue(compareByteArray(expected, IOUtils.toByteArray(jarFile
+                    .getInputStream(jarFile.getEntry("lib/junit-4.12.jar")))));
+            Assert.assertNotNull(nestedJarFile.getEntry("org/junit/Test.class"));
+            Assert.assertTrue(IOUtils.toByteArray(nestedJarFile.getInputStream(nestedJarFile
+                .getEntry("org/junit/Test.class"))).length > 0);
+            jarFile.close();
+        } finally {
+            System.clearProperty(Constants.ARK_JAR_MMAP_ENABLE);
+        }
+    }
+
+}
@@ -22,7 +22,12 @@ import com.alipay.sofa.ark.loader.test.base.BaseTest;
 import org.junit.Assert;
 import org.junit.Test;
 
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
 import java.io.IOException;
+import java.util.jar.JarOutputStream;
+import java.util.zip.ZipEntry;
 
 /**
  * @author qilong.zql
@@ -38,7 +43,31 @@ public class CentralDirectoryEndRecordTest extends BaseTest {
         Assert.assertTrue(eocd.isValid());
         Assert.assertTrue(eocd.getStartOfArchive(dataFile) == 0);
         Assert.assertTrue(eocd.getNumberOfRecords() == 5);
+        Assert.assertFalse(eocd.isZip64());
 
     }
 
+    @Test
+    public void testZip64EOCD() throws IOException {
+        File file = new File(getWorkspace(), "zip64-prefixed.jar");
+        byte[] prefix = "#!/bin/sh\nexit 0\n".getBytes();
+        FileOutputStream outputStream = new FileOutputStream(file);
+        outputStream.write(prefix);
+        // more than 65535 entries, the jdk switches to Zip64 records
+        JarOutputStream jos = new JarOutputStream(new BufferedOutputStream(outputStream));
+        try {
+            for (int i = 0; i < 70000; i++) {
+                jos.putNextEntry(new ZipEntry("entry-" + i + "/"));
+            }
+        } finally {
+            jos.close();
+        }
+
+        RandomAccessDataFile dataFile = new RandomAccessDataFile(file);
+        CentralDirectoryEndRecord eocd = new CentralDirectoryEndRecord(dataFile);
+        Assert.assertTrue(eocd.isZip64());
+        Assert.assertEquals(70000, eocd.getNumberOfRecords());
+        Assert.assertEquals(prefix.length, eocd.getStartOfArchive(dataFile));
+    }
+
 }
\ No newline at end of file
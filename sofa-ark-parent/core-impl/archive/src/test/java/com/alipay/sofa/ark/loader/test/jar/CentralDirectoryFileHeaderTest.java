@@ -61,4 +61,38 @@ public class CentralDirectoryFileHeaderTest extends BaseTest {
             .assertTrue(compareByteArray(cdfhList.get(4).getExtra(), TEST_ENTRY_EXTRA.getBytes()));
 
     }
+
+    @Test
+    public void testZip64ExtraField() throws IOException {
+        byte[] name = "lib/huge.jar".getBytes();
+        byte[] header = new byte[CENTRAL_DIRECTORY_HEADER_BASE_SIZE + name.length + 4 + 24];
+        putValue(header, 0, 0x02014b50L, 4);
+        putValue(header, 20, 0xFFFFFFFFL, 4);
+        putValue(header, 24, 0xFFFFFFFFL, 4);
+        putValue(header, 28, name.length, 2);
+        putValue(header, 30, 4 + 24, 2);
+        putValue(header, 42, 0xFFFFFFFFL, 4);
+        System.arraycopy(name, 0, header, CENTRAL_DIRECTORY_HEADER_BASE_SIZE, name.length);
+        // Zip64 extended information: size, compressed size and local header offset
+        int extraOffset = CENTRAL_DIRECTORY_HEADER_BASE_SIZE + name.length;
+        putValue(header, extraOffset, 0x0001, 2);
+        putValue(header, extraOffset + 2, 24, 2);
+        putValue(header, extraOffset + 4, 5L << 30, 8);
+        putValue(header, extraOffset + 12, 9L << 29, 8);
+        putValue(header, extraOffset + 20, 6L << 30, 8);
+
+        CentralDirectoryFileHeader cdfh = new CentralDirectoryFileHeader();
+        cdfh.load(header, 0, null, 0, null);
+        Assert.assertEquals("lib/huge.jar", cdfh.getName().toString());
+        Assert.assertEquals(5L << 30, cdfh.getSize());
+        Assert.assertEquals(9L << 29, cdfh.getCompressedSize());
+        Assert.assertEquals(6L << 30, cdfh.getLocalHeaderOffset());
+        Assert.assertEquals(5L << 30, cdfh.clone().getSize());
+    }
+
+    private void putValue(byte[] bytes, int offset, long value, int length) {
+        for (int i = 0; i < length; i++) {
+            bytes[offset + i] = (byte) (value >>> (8 * i));
+        }
+    }
 }
\ No newline at end of file
@@ -0,0 +1,185 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alipay.sofa.ark.loader.test.jar;
+
+import com.alipay.sofa.ark.loader.jar.CentralDirectoryIndex;
+import com.alipay.sofa.ark.loader.jar.JarFile;
+import com.alipay.sofa.ark.loader.test.base.BaseTest;
+import com.alipay.sofa.ark.spi.constant.Constants;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.jar.JarEntry;
+
+/**
+ * @author agent
+ * @since 0.6.0
+ */
+public class CentralDirectoryIndexTest extends BaseTest {
+
+    private static final String NESTED_JAR = "lib/junit-4.12.jar";
+
+    @Before
+    public void before() {
+        File directory = new File(getWorkspace(), "index");
+        System.setProperty(Constants.ARK_JAR_INDEX_DIRECTORY, directory.getAbsolutePath());
+        directory.mkdirs();
+        CentralDirectoryIndex.getIndexFile(getTempDemoZip()).delete();
+        CentralDirectoryIndex.release(getTempDemoZip());
+    }
+
+    @After
+    public void after() {
+        System.clearProperty(Constants.ARK_JAR_INDEX_ENABLE);
+        System.clearProperty(Constants.ARK_JAR_INDEX_DIRECTORY);
+    }
+
+    @Test
+    public void testIndexedEntries() throws IOException {
+        JarFile parsed = new JarFile(getTempDemoZip());
+        File indexFile = CentralDirectoryIndex.getIndexFile(getTempDemoZip());
+        Assert.assertFalse(indexFile.exists());
+
+        System.setProperty(Constants.ARK_JAR_INDEX_ENABLE, "true");
+        JarFile recorded = new JarFile(getTempDemoZip());
+        // jars are recorded as they are opened and persisted later
+        Assert.assertFalse(indexFile.exists());
+        recorded.getNestedJarFile(recorded.getJarEntry(NESTED_JAR));
+        CentralDirectoryIndex.persist();
+        Assert.assertTrue(indexFile.isFile());
+
+        // the index is read from disk once per process
+        Assert.assertTrue(indexFile.delete());
+        JarFile indexed = new JarFile(getTempDemoZip());
+        CentralDirectoryIndex.persist();
+        Assert.assertFalse(indexFile.exists());
+        Assert.assertTrue(CentralDirectoryIndex.release(getTempDemoZip()));
+        assertSameEntries(parsed, indexed);
+        assertSameEntries(parsed.getNestedJarFile(parsed.getJarEntry(NESTED_JAR)),
+            indexed.getNestedJarFile(indexed.getJarEntry(NESTED_JAR)));
+        Assert.assertEquals("JUnit", indexed.getNestedJarFile(indexed.getJarEntry(NESTED_JAR))
+            .getManifest().getMainAttributes().getValue("Implementation-Title"));
+        Assert.assertNotNull(indexed.getNestedJarFile(indexed.getJarEntry(NESTED_JAR)).getEntry(
+            "org/junit/Test.class"));
+    }
+
+    @Test
+    public void testRegenerateIndex() throws IOException {
+        System.setProperty(Constants.ARK_JAR_INDEX_ENABLE, "true");
+        File indexFile = CentralDirectoryIndex.getIndexFile(getTempDemoZip());
+        FileOutputStream outputStream = new FileOutputStream(indexFile);
+        try {
+            outputStream.write(CONSTANT_BYTE);
+        } finally {
+            outputStream.close();
+        }
+
+        JarFile jarFile = new JarFile(getTempDemoZip());
+        Assert.assertTrue(jarFile.containsEntry(TEST_ENTRY));
+        CentralDirectoryIndex.persist();
+        Assert.assertTrue(indexFile.length() > CONSTANT_BYTE.length);
+
+        // a stale index is generated again
+        CentralDirectoryIndex.release(getTempDemoZip());
+        Assert.assertTrue(indexFile.setLastModified(0));
+        Assert
+            .assertTrue(getTempDemoZip().setLastModified(getTempDemoZip().lastModified() - 10000));
+        jarFile = new JarFile(getTempDemoZip());
+        Assert.assertTrue(jarFile.containsEntry(TEST_ENTRY));
+        CentralDirectoryIndex.persist();
+        Assert.assertTrue(indexFile.lastModified() > 0);
+    }
+
+    @Test
+    public void testCorruptedIndex() throws IOException {
+        System.setProperty(Constants.ARK_JAR_INDEX_ENABLE, "true");
+        File indexFile = CentralDirectoryIndex.getIndexFile(getTempDemoZip());
+        new JarFile(getTempDemoZip());
+        CentralDirectoryIndex.persist();
+        byte[] valid = Files.readAllBytes(indexFile.toPath());
+
+        // a valid header followed by huge or negative counts, or a truncated index
+        int countOffset = 4 + 4 + 8 + 8;
+        for (int count : new int[] { Integer.MAX_VALUE, -1 }) {
+            byte[] corrupted = valid.clone();
+            ByteBuffer.wrap(corrupted).putInt(countOffset, count);
+            assertRegenerated(indexFile, corrupted);
+            // the entry count of the first section
+            corrupted = valid.clone();
+            int pathLength = ByteBuffer.wrap(valid).getShort(countOffset + 4);
+            ByteBuffer.wrap(corrupted).putInt(countOffset + 4 + 2 + pathLength + 8 + 8 + 1, count);
+            assertRegenerated(indexFile, corrupted);
+        }
+        assertRegenerated(indexFile, Arrays.copyOf(valid, valid.length / 2));
+        byte[] garbage = new byte[valid.length];
+        new Random(0).nextBytes(garbage);
+        System.arraycopy(valid, 0, garbage, 0, countOffset);
+        assertRegenerated(indexFile, garbage);
+    }
+
+    private void assertRegenerated(File indexFile, byte[] content) throws IOException {
+        CentralDirectoryIndex.release(getTempDemoZip());
+        Files.write(indexFile.toPath(), content);
+        JarFile jarFile = new JarFile(getTempDemoZip());
+        Assert.assertTrue(jarFile.containsEntry(TEST_ENTRY));
+        CentralDirectoryIndex.persist();
+        Assert.assertFalse(Arrays.equals(content, Files.readAllBytes(indexFile.toPath())));
+    }
+
+    @Test
+    public void testUnpackedJarNotIndexed() throws IOException {
+        System.setProperty(Constants.ARK_JAR_INDEX_ENABLE, "true");
+        File unpackDirectory = new File(getWorkspace(), "index-unpack");
+        CentralDirectoryIndex.exclude(unpackDirectory);
+        File unpackedFile = new File(new File(unpackDirectory, "sha1"), "demo.jar");
+        unpackedFile.getParentFile().mkdirs();
+        Files.copy(getTempDemoZip().toPath(), unpackedFile.toPath(),
+            StandardCopyOption.REPLACE_EXISTING);
+        Assert.assertTrue(new JarFile(unpackedFile).containsEntry(TEST_ENTRY));
+        CentralDirectoryIndex.persist();
+        Assert.assertFalse(CentralDirectoryIndex.getIndexFile(unpackedFile).exists());
+    }
+
+    private void assertSameEntries(JarFile expected, JarFile actual) {
+        Assert.assertEquals(getEntryNames(expected), getEntryNames(actual));
+        for (String name : getEntryNames(expected)) {
+            Assert.assertEquals(name, actual.getEntry(name).getName());
+        }
+    }
+
+    private List<String> getEntryNames(JarFile jarFile) {
+        List<String> names = new ArrayList<>();
+        for (JarEntry jarEntry : Collections.list(jarFile.entries())) {
+            names.add(jarEntry.getName());
+        }
+        return names;
+    }
+
+}
@@ -23,9 +23,13 @@ import com.alipay.sofa.ark.loader.test.base.BaseTest;
 import org.junit.Assert;
 import org.junit.Test;
 
+import java.io.File;
+import java.io.FileOutputStream;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.jar.JarOutputStream;
+import java.util.zip.ZipEntry;
 
 /**
  * @author qilong.zql
@@ -50,6 +54,46 @@ public class CentralDirectoryParserTest extends BaseTest {
 
     }
 
+    @Test
+    public void testParseLargeCentralDirectory() throws IOException {
+        File file = new File(getWorkspace(), "large-central-directory.jar");
+        List<String> names = new ArrayList<>();
+        JarOutputStream jos = new JarOutputStream(new FileOutputStream(file));
+        try {
+            for (int i = 0; i < 2000; i++) {
+                String name = "com/alipay/sofa/ark/large/central/directory/Entry" + i + ".class";
+                ZipEntry entry = new ZipEntry(name);
+                if (i == 1000) {
+                    // a single header larger than the parse window
+                    entry.setExtra(new byte[40000]);
+                    entry.setComment(new String(new char[40000]).replace('\0', 'c'));
+                }
+                jos.putNextEntry(entry);
+                names.add(name);
+            }
+        } finally {
+            jos.close();
+        }
+
+        CentralDirectoryParser cdParser = new CentralDirectoryParser();
+        final List<String> parsedNames = new ArrayList<>();
+        final List<Integer> commentLengths = new ArrayList<>();
+        cdParser.addVisitor(new TestVisitor() {
+            @Override
+            public void visitFileHeader(CentralDirectoryFileHeader fileHeader, int dataOffset) {
+                parsedNames.add(fileHeader.getName().toString());
+                commentLengths.add(fileHeader.getComment().length());
+            }
+        });
+        cdParser.parse(new RandomAccessDataFile(file), false);
+        Assert.assertEquals(names, parsedNames);
+        Assert.assertEquals(40000, commentLengths.get(1000).intValue());
+
+        JarFile jarFile = new JarFile(file);
+        Assert.assertEquals(40000, jarFile.getEntry(names.get(1000)).getComment().length());
+        Assert.assertEquals(names.get(1999), jarFile.getEntry(names.get(1999)).getName());
+    }
+
     public static class TestVisitor implements CentralDirectoryVisitor {
 
         public int                              entryNum;
@@ -0,0 +1,174 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alipay.sofa.ark.loader.test.jar;
+
+import com.alipay.sofa.ark.loader.jar.Handler;
+import com.alipay.sofa.ark.loader.jar.JarFile;
+import com.alipay.sofa.ark.loader.test.base.BaseTest;
+import com.alipay.sofa.ark.spi.constant.Constants;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.JarURLConnection;
+import java.net.URL;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.jar.JarOutputStream;
+import java.util.zip.ZipEntry;
+
+/**
+ * @author agent
+ * @since 0.6.0
+ */
+public class HandlerTest extends BaseTest {
+
+    @Test
+    public void testRootFileCache() throws IOException {
+        URL url = getNestedEntryUrl(getTempDemoZip().toURI().toURL());
+        Handler.releaseRootJarFile(url);
+
+        long hitCount = Handler.getRootFileCacheHitCount();
+        long missCount = Handler.getRootFileCacheMissCount();
+        readFully(url);
+        readFully(url);
+        Assert.assertEquals(missCount + 1, Handler.getRootFileCacheMissCount());
+        Assert.assertEquals(hitCount + 1, Handler.getRootFileCacheHitCount());
+
+        // connections opened before the release keep working on the closed root jar file
+        InputStream inputStream = url.openConnection().getInputStream();
+        Assert.assertTrue(Handler.releaseRootJarFile(url));
+        Assert.assertFalse(Handler.releaseRootJarFile(url));
+        try {
+            while (inputStream.read() != -1) {
+                // drain
+            }
+        } finally {
+            inputStream.close();
+        }
+        readFully(url);
+        Assert.assertEquals(missCount + 2, Handler.getRootFileCacheMissCount());
+        Assert.assertTrue(Handler.releaseRootJarFile(url));
+    }
+
+    @Test
+    public void testConcurrentRootFileMiss() throws Exception {
+        final URL url = getNestedEntryUrl(getTempDemoZip().toURI().toURL());
+        Handler.releaseRootJarFile(url);
+        long missCount = Handler.getRootFileCacheMissCount();
+
+        final CountDownLatch start = new CountDownLatch(1);
+        final AtomicReference<Throwable> failure = new AtomicReference<>();
+        Thread[] threads = new Thread[8];
+        for (int i = 0; i < threads.length; i++) {
+            threads[i] = new Thread() {
+                @Override
+                public void run() {
+                    try {
+                        start.await();
+                        readFully(url);
+                    } catch (Throwable t) {
+                        failure.set(t);
+                    }
+                }
+            };
+            threads[i].start();
+        }
+        start.countDown();
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        Assert.assertNull(failure.get());
+        // the root jar file is opened once
+        Assert.assertEquals(missCount + 1, Handler.getRootFileCacheMissCount());
+        Assert.assertTrue(Handler.releaseRootJarFile(url));
+    }
+
+    @Test
+    public void testBoundedRootFileCache() throws IOException {
+        URL[] urls = new URL[Constants.DEFAULT_ARK_JAR_ROOT_CACHE_SIZE + 1];
+        for (int i = 0; i < urls.length; i++) {
+            File file = new File(getWorkspace(), "root-" + i + ".jar");
+            JarOutputStream jos = new JarOutputStream(new FileOutputStream(file));
+            try {
+                jos.putNextEntry(new ZipEntry("root.txt"));
+                jos.write(CONSTANT_BYTE);
+            } finally {
+                jos.close();
+            }
+            urls[i] = new URL(null, "jar:" + file.toURI().toURL() + "!/root.txt", new Handler());
+            Handler.releaseRootJarFile(urls[i]);
+        }
+        for (int i = 0; i < urls.length - 1; i++) {
+            readFully(urls[i]);
+        }
+        // the least recently used root jar file is dropped when the cache is full
+        readFully(urls[0]);
+        readFully(urls[urls.length - 1]);
+        Assert.assertFalse(Handler.releaseRootJarFile(urls[1]));
+        for (int i = 0; i < urls.length; i++) {
+            Assert.assertEquals(i != 1, Handler.releaseRootJarFile(urls[i]));
+        }
+    }
+
+    @Test
+    public void testResolvedUrlCache() throws IOException {
+        JarFile jarFile = new JarFile(getTempDemoZip());
+        URL url = new URL(jarFile.getUrl(), "lib/junit-4.12.jar!/org/junit/Test.class");
+        JarURLConnection connection = (JarURLConnection) url.openConnection();
+        Assert.assertEquals("org/junit/Test.class", connection.getJarEntry().getName());
+        readFully(url);
+
+        // the nested jar file and the entry are resolved once
+        JarURLConnection other = (JarURLConnection) new URL(jarFile.getUrl(),
+            "lib/junit-4.12.jar!/org/junit/Test.class").openConnection();
+        Assert.assertNotSame(connection, other);
+        Assert.assertSame(connection.getJarFile(), other.getJarFile());
+        Assert.assertSame(connection.getJarEntry(), other.getJarEntry());
+        Assert.assertSame(connection.getJarFile(), ((JarURLConnection) new URL(jarFile.getUrl(),
+            "lib/junit-4.12.jar!/org/junit/Assert.class").openConnection()).getJarFile());
+
+        URL missingUrl = new URL(jarFile.getUrl(), "lib/junit-4.12.jar!/org/junit/Missing.class");
+        try {
+            readFully(missingUrl);
+            Assert.fail();
+        } catch (FileNotFoundException ex) {
+            // expected
+        }
+    }
+
+    private URL getNestedEntryUrl(URL rootUrl) throws IOException {
+        return new URL(null, "jar:" + rootUrl + "!/lib/junit-4.12.jar!/org/junit/Test.class",
+            new Handler());
+    }
+
+    private void readFully(URL url) throws IOException {
+        InputStream inputStream = url.openConnection().getInputStream();
+        try {
+            while (inputStream.read() != -1) {
+                // read to the end
+            }
+        } finally {
+            inputStream.close();
+        }
+    }
+
+}
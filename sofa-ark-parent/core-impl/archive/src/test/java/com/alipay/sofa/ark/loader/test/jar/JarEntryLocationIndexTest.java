@@ -0,0 +1,69 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alipay.sofa.ark.loader.test.jar;
+
+import com.alipay.sofa.ark.loader.jar.JarEntryLocationIndex;
+import com.alipay.sofa.ark.loader.jar.JarFile;
+import com.alipay.sofa.ark.loader.test.base.BaseTest;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.net.URL;
+
+/**
+ * @author agent
+ * @since 0.6.0
+ */
+public class JarEntryLocationIndexTest extends BaseTest {
+
+    @Test
+    public void testIndexOf() throws IOException {
+        JarFile jarFile = new JarFile(getTempDemoZip());
+        JarFile nestJarFile = jarFile.getNestedJarFile(jarFile.getJarEntry("lib/junit-4.12.jar"));
+        JarEntryLocationIndex index = JarEntryLocationIndex.create(new URL[] {
+                nestJarFile.getUrl(), jarFile.getUrl() });
+
+        Assert.assertNotNull(index);
+        Assert.assertEquals(2, index.getJarCount());
+        Assert.assertSame(nestJarFile, index.getJarFile(0));
+        Assert.assertSame(jarFile, index.getJarFile(1));
+
+        Assert.assertEquals(0, index.indexOf("org/junit/Test.class", 0));
+        Assert.assertEquals(-1, index.indexOf("org/junit/Test.class", 1));
+        Assert.assertEquals(1, index.indexOf("lib/junit-4.12.jar", 0));
+
+        // first wins, later jars are still reachable
+        Assert.assertEquals(0, index.indexOf("META-INF/MANIFEST.MF", 0));
+        Assert.assertEquals(1, index.indexOf("META-INF/MANIFEST.MF", 1));
+
+        // directory entries are found with or without trailing slash
+        Assert.assertEquals(1, index.indexOf(TEST_ENTRY, 0));
+        Assert.assertEquals(1, index.indexOf("testEntry", 0));
+        Assert.assertEquals(0, index.indexOf("org/junit", 0));
+
+        Assert.assertEquals(-1, index.indexOf("org/junit/NotExist.class", 0));
+    }
+
+    @Test
+    public void testCreateWithoutArkJar() throws IOException {
+        JarFile jarFile = new JarFile(getTempDemoZip());
+        Assert.assertNull(JarEntryLocationIndex.create(new URL[] { jarFile.getUrl(),
+                getTempDemoFile().toURI().toURL() }));
+    }
+
+}
@@ -19,11 +19,19 @@ package com.alipay.sofa.ark.loader.test.jar;
 import com.alipay.sofa.ark.loader.jar.JarEntry;
 import com.alipay.sofa.ark.loader.jar.JarFile;
 import com.alipay.sofa.ark.loader.test.base.BaseTest;
+import com.alipay.sofa.ark.spi.constant.Constants;
 import org.junit.Assert;
 import org.junit.Test;
 
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.util.Collections;
+import java.util.jar.JarOutputStream;
 import java.util.jar.Manifest;
+import java.util.zip.CRC32;
 import java.util.zip.ZipEntry;
 
 /**
@@ -57,4 +65,141 @@ public class JarFileTest extends BaseTest {
 
     }
 
-}
\ No newline at end of file
+    @Test
+    public void testEntryCache() throws IOException {
+        JarFile jarFile = new JarFile(getTempDemoZip());
+        JarFile nestJarFile = jarFile.getNestedJarFile(jarFile.getJarEntry("lib/junit-4.12.jar"));
+        for (int i = 0; i < 3; i++) {
+            Assert.assertNotNull(nestJarFile.getEntry("org/junit/Test.class"));
+        }
+        Assert.assertEquals(1, nestJarFile.getEntryCacheMissCount());
+        Assert.assertEquals(2, nestJarFile.getEntryCacheHitCount());
+
+        nestJarFile.clearCache();
+        Assert.assertNotNull(nestJarFile.getEntry("org/junit/Test.class"));
+        Assert.assertEquals(2, nestJarFile.getEntryCacheMissCount());
+
+        System.setProperty(Constants.ARK_JAR_ENTRY_CACHE_SIZE, "0");
+        try {
+            // all entries share one slot of the smallest cache
+            nestJarFile = jarFile.getNestedJarFile(jarFile.getJarEntry("lib/junit-4.12.jar"));
+            for (java.util.jar.JarEntry jarEntry : Collections.list(nestJarFile.entries())) {
+                Assert.assertEquals(jarEntry.getName(), nestJarFile.getEntry(jarEntry.getName())
+                    .getName());
+            }
+            Assert.assertTrue(nestJarFile.getEntryCacheMissCount() > 0);
+        } finally {
+            System.clearProperty(Constants.ARK_JAR_ENTRY_CACHE_SIZE);
+        }
+    }
+
+    @Test
+    public void testPooledInflater() throws IOException {
+        JarFile jarFile = new JarFile(getTempDemoZip());
+        JarFile nestJarFile = jarFile.getNestedJarFile(jarFile.getJarEntry("lib/junit-4.12.jar"));
+        ZipEntry zipEntry = nestJarFile.getEntry("org/junit/Assert.class");
+        Assert.assertEquals(ZipEntry.DEFLATED, zipEntry.getMethod());
+
+        byte[] expected = null;
+        for (int i = 0; i < 100; i++) {
+            InputStream inputStream = nestJarFile.getInputStream(zipEntry);
+            byte[] bytes = readFully(inputStream);
+            inputStream.close();
+            // closing twice must not return the inflater twice
+            inputStream.close();
+            Assert.assertEquals(zipEntry.getSize(), bytes.length);
+            if (expected == null) {
+                expected = bytes;
+            }
+            Assert.assertTrue(compareByteArray(expected, bytes));
+        }
+
+        InputStream inputStream = nestJarFile.getInputStream(zipEntry);
+        inputStream.close();
+        try {
+            inputStream.read();
+            Assert.fail();
+        } catch (IOException ex) {
+            // expected, the stream is closed
+        }
+    }
+
+    @Test
+    public void testNestedZip64JarFile() throws IOException {
+        ByteArrayOutputStream nestedJar = new ByteArrayOutputStream();
+        JarOutputStream jos = new JarOutputStream(nestedJar);
+        try {
+            for (int i = 0; i < 70000; i++) {
+                jos.putNextEntry(new ZipEntry("entry-" + i + "/"));
+            }
+            jos.putNextEntry(new ZipEntry("last.txt"));
+            jos.write(CONSTANT_BYTE);
+        } finally {
+            jos.close();
+        }
+
+        File file = new File(getWorkspace(), "zip64-nested.jar");
+        CRC32 crc = new CRC32();
+        crc.update(nestedJar.toByteArray());
+        jos = new JarOutputStream(new FileOutputStream(file));
+        try {
+            ZipEntry entry = new ZipEntry("lib/zip64.jar");
+            entry.setMethod(ZipEntry.STORED);
+            entry.setSize(nestedJar.size());
+            entry.setCrc(crc.getValue());
+            jos.putNextEntry(entry);
+            nestedJar.writeTo(jos);
+        } finally {
+            jos.close();
+        }
+
+        JarFile jarFile = new JarFile(file);
+        JarFile nestedJarFile = jarFile.getNestedJarFile(jarFile.getJarEntry("lib/zip64.jar"));
+        Assert.assertEquals(70001, Collections.list(nestedJarFile.entries()).size());
+        Assert.assertNotNull(nestedJarFile.getEntry("entry-69999/"));
+        InputStream inputStream = nestedJarFile.getInputStream(nestedJarFile.getEntry("last.txt"));
+        try {
+            Assert.assertTrue(compareByteArray(CONSTANT_BYTE, readFully(inputStream)));
+        } finally {
+            inputStream.close();
+        }
+    }
+
+    @Test
+    public void testSharedManifest() throws IOException {
+        File file = getTempDemoZip();
+        JarFile jarFile = new JarFile(file);
+        Manifest manifest = jarFile.getManifest();
+        JarFile directoryJarFile = jarFile.getNestedJarFile(jarFile.getJarEntry(TEST_ENTRY));
+        Assert.assertSame(manifest, directoryJarFile.getManifest());
+
+        // manifests are strongly held, definePackage does not parse them again under gc
+        System.gc();
+        Assert.assertSame(manifest, new JarFile(file).getManifest());
+        Assert.assertSame(manifest,
+            new JarFile(file).getNestedJarFile(jarFile.getJarEntry(TEST_ENTRY)).getManifest());
+
+        Assert.assertTrue(JarFile.invalidateManifests(file));
+        JarFile reopened = new JarFile(file);
+        Manifest reloaded = reopened.getNestedJarFile(reopened.getJarEntry(TEST_ENTRY))
+            .getManifest();
+        Assert.assertNotSame(manifest, reloaded);
+        Assert.assertEquals("v1", reloaded.getMainAttributes().getValue("k1"));
+        Assert.assertSame(reloaded, reopened.getManifest());
+
+        // a root jar file of the same size but modified again is read again
+        Assert.assertTrue(file.setLastModified(file.lastModified() - 10000));
+        Assert.assertNotSame(reloaded, new JarFile(file).getManifest());
+    }
+
+    private byte[] readFully(InputStream inputStream) throws IOException {
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        byte[] buffer = new byte[1024];
+        int read;
+        while ((read = inputStream.read(buffer)) != -1) {
+            outputStream.write(buffer, 0, read);
+        }
+        return outputStream.toByteArray();
+    }
+
+}
@@ -22,6 +22,7 @@ import com.alipay.sofa.ark.common.util.ClassloaderUtils;
 import com.alipay.sofa.ark.common.util.StringUtils;
 import com.alipay.sofa.ark.container.service.ArkServiceContainerHolder;
 import com.alipay.sofa.ark.exception.ArkException;
+import com.alipay.sofa.ark.loader.jar.Handler;
 import com.alipay.sofa.ark.spi.constant.Constants;
 import com.alipay.sofa.ark.spi.event.BizEvent;
 import com.alipay.sofa.ark.spi.model.Biz;
@@ -211,6 +212,7 @@ public class BizModel implements Biz {
                 .getService(BizManagerService.class);
             bizManagerService.unRegisterBiz(bizName, bizVersion);
             bizState = BizState.UNRESOLVED;
+            releaseRootJarFiles();
             urls = null;
             classLoader = null;
             denyImportPackages = null;
@@ -219,6 +221,15 @@ public class BizModel implements Biz {
         }
     }
 
+    private void releaseRootJarFiles() {
+        if (urls == null) {
+            return;
+        }
+        for (URL url : urls) {
+            Handler.releaseRootJarFile(url);
+        }
+    }
+
     @Override
     public BizState getBizState() {
         return bizState;
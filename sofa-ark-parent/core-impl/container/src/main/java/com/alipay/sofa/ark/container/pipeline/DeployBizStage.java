@@ -16,6 +16,7 @@
  */
 package com.alipay.sofa.ark.container.pipeline;
 
+import com.alipay.sofa.ark.container.service.classloader.ClassPreloader;
 import com.alipay.sofa.ark.exception.ArkException;
 import com.alipay.sofa.ark.spi.pipeline.PipelineContext;
 import com.alipay.sofa.ark.spi.pipeline.PipelineStage;
@@ -35,12 +36,17 @@ public class DeployBizStage implements PipelineStage {
     @Inject
     private BizDeployService bizDeployService;
 
+    @Inject
+    private ClassPreloader   classPreloader;
+
     @Override
     public void process(PipelineContext pipelineContext) throws ArkException {
-        if (pipelineContext.getLaunchCommand().isTestMode()) {
-            return;
+        if (!pipelineContext.getLaunchCommand().isTestMode()) {
+            String[] args = pipelineContext.getLaunchCommand().getLaunchArgs();
+            bizDeployService.deploy(args);
+        }
+        if (ClassPreloader.isEnabled()) {
+            classPreloader.record(pipelineContext.getExecutableArchive());
         }
-        String[] args = pipelineContext.getLaunchCommand().getLaunchArgs();
-        bizDeployService.deploy(args);
     }
 }
\ No newline at end of file
@@ -16,6 +16,7 @@
  */
 package com.alipay.sofa.ark.container.pipeline;
 
+import com.alipay.sofa.ark.container.service.classloader.ClassPreloader;
 import com.alipay.sofa.ark.exception.ArkException;
 import com.alipay.sofa.ark.spi.pipeline.PipelineContext;
 import com.alipay.sofa.ark.spi.pipeline.PipelineStage;
@@ -39,9 +40,15 @@ public class DeployPluginStage implements PipelineStage {
     @Inject
     private PluginDeployService pluginDeployService;
 
+    @Inject
+    private ClassPreloader      classPreloader;
+
     @Override
     public void process(PipelineContext pipelineContext) throws ArkException {
         classloaderService.prepareExportClassAndResourceCache();
+        if (ClassPreloader.isEnabled()) {
+            classPreloader.preload(pipelineContext.getExecutableArchive());
+        }
         pluginDeployService.deploy();
     }
 
@@ -20,6 +20,7 @@ import com.alipay.sofa.ark.common.util.AssertUtils;
 import com.alipay.sofa.ark.common.util.OrderComparator;
 import com.alipay.sofa.ark.common.util.StringUtils;
 import com.alipay.sofa.ark.container.model.BizModel;
+import com.alipay.sofa.ark.container.service.classloader.ClassloaderCacheVersion;
 import com.alipay.sofa.ark.spi.constant.Constants;
 import com.alipay.sofa.ark.spi.model.Biz;
 import com.alipay.sofa.ark.spi.model.BizState;
@@ -47,7 +48,11 @@ public class BizManagerServiceImpl implements BizManagerService {
         AssertUtils.isTrue(biz.getBizState() == BizState.RESOLVED, "BizState must be RESOLVED.");
         bizRegistration.putIfAbsent(biz.getBizName(), new ConcurrentHashMap<String, Biz>(16));
         ConcurrentHashMap bizCache = bizRegistration.get(biz.getBizName());
-        return bizCache.putIfAbsent(biz.getBizVersion(), biz) == null;
+        if (bizCache.putIfAbsent(biz.getBizVersion(), biz) == null) {
+            ClassloaderCacheVersion.increment();
+            return true;
+        }
+        return false;
     }
 
     @Override
@@ -63,7 +68,11 @@ public class BizManagerServiceImpl implements BizManagerService {
         AssertUtils.isFalse(StringUtils.isEmpty(bizVersion), "Biz version must not be empty.");
         ConcurrentHashMap<String, Biz> bizCache = bizRegistration.get(bizName);
         if (bizCache != null) {
-            return bizCache.remove(bizVersion);
+            Biz biz = bizCache.remove(bizVersion);
+            if (biz != null) {
+                ClassloaderCacheVersion.increment();
+            }
+            return biz;
         }
         return null;
     }
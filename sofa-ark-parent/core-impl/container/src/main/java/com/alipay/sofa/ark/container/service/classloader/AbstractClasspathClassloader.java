@@ -19,23 +19,35 @@ package com.alipay.sofa.ark.container.service.classloader;
 import com.alipay.sofa.ark.bootstrap.UseFastConnectionExceptionsEnumeration;
 import com.alipay.sofa.ark.common.util.StringUtils;
 import com.alipay.sofa.ark.container.service.ArkServiceContainerHolder;
+import com.alipay.sofa.ark.container.service.classloader.PackageManifestIndex.PackageSource;
 import com.alipay.sofa.ark.exception.ArkLoaderException;
+import com.alipay.sofa.ark.loader.data.RandomAccessData.ResourceAccess;
 import com.alipay.sofa.ark.loader.jar.Handler;
+import com.alipay.sofa.ark.loader.jar.JarEntryLocationIndex;
+import com.alipay.sofa.ark.loader.jar.JarFile;
 import com.alipay.sofa.ark.spi.service.classloader.ClassloaderService;
-import sun.misc.CompoundEnumeration;
 
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
-import java.net.JarURLConnection;
+import java.io.InputStream;
+import java.net.MalformedURLException;
 import java.net.URL;
 import java.net.URLClassLoader;
-import java.net.URLConnection;
+import java.nio.charset.StandardCharsets;
+import java.security.AccessControlContext;
 import java.security.AccessController;
+import java.security.CodeSource;
+import java.security.PrivilegedActionException;
 import java.security.PrivilegedExceptionAction;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Enumeration;
 import java.util.List;
-import java.util.jar.JarFile;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.jar.Attributes;
+import java.util.jar.JarEntry;
+import java.util.jar.Manifest;
 
 /**
  *
@@ -46,13 +58,51 @@ import java.util.jar.JarFile;
  */
 public abstract class AbstractClasspathClassloader extends URLClassLoader {
 
-    protected static final String CLASS_RESOURCE_SUFFIX = ".class";
+    static {
+        ClassLoader.registerAsParallelCapable();
+    }
+
+    protected static final String       CLASS_RESOURCE_SUFFIX = ".class";
+
+    private static final String         PATH_PUNCTUATION      = "-_.!~*'():@&=+$,;/";
+
+    private static final char[]         HEX_DIGITS            = "0123456789ABCDEF".toCharArray();
+
+    protected ClassloaderService        classloaderService    = ArkServiceContainerHolder
+                                                                  .getContainer().getService(
+                                                                      ClassloaderService.class);
+
+    protected NegativeClassCache        negativeClassCache    = new NegativeClassCache();
+
+    protected ResourceCache             resourceCache         = new ResourceCache();
+
+    protected HotResourcesCache         hotResourcesCache     = new HotResourcesCache();
+
+    /**
+     * index of entry name to the jar owning it, null if the classpath is not all ark jar
+     */
+    private final JarEntryLocationIndex locationIndex;
+
+    private final PackageManifestIndex  packageManifestIndex;
+
+    /**
+     * context in which classes are defined, as {@link URLClassLoader} does
+     */
+    private final AccessControlContext  acc;
 
-    protected ClassloaderService  classloaderService    = ArkServiceContainerHolder.getContainer()
-                                                            .getService(ClassloaderService.class);
+    /**
+     * classes defined by this classloader in order, only recorded during startup
+     */
+    private volatile Queue<String>      definedClasses;
 
     public AbstractClasspathClassloader(URL[] urls) {
         super(urls, null);
+        this.locationIndex = JarEntryLocationIndex.create(urls);
+        this.packageManifestIndex = new PackageManifestIndex(urls, locationIndex);
+        this.acc = AccessController.getContext();
+        if (ClassPreloader.isEnabled()) {
+            this.definedClasses = new ConcurrentLinkedQueue<>();
+        }
     }
 
     @Override
@@ -60,10 +110,22 @@ public abstract class AbstractClasspathClassloader extends URLClassLoader {
         if (StringUtils.isEmpty(name)) {
             return null;
         }
+        if (negativeClassCache.contains(name)) {
+            // class may be defined directly by byte code tools after it was missed
+            Class<?> clazz = findLoadedClass(name);
+            if (clazz != null) {
+                return clazz;
+            }
+            throw new ArkLoaderException(String.format("[Ark Loader] can not load class: %s", name));
+        }
+        long cacheVersion = ClassloaderCacheVersion.get();
         Handler.setUseFastConnectionExceptions(true);
         try {
             definePackageIfNecessary(name);
             return loadClassInternal(name, resolve);
+        } catch (ArkLoaderException e) {
+            negativeClassCache.add(name, cacheVersion);
+            throw e;
         } finally {
             Handler.setUseFastConnectionExceptions(false);
         }
@@ -89,41 +151,190 @@ public abstract class AbstractClasspathClassloader extends URLClassLoader {
         }
     }
 
-    private void definePackage(final String className, final String packageName) {
+    private void definePackage(String className, String packageName) {
+        PackageSource source = packageManifestIndex.getPackageSource(className, packageName);
+        if (source != null) {
+            definePackage(packageName, source.getManifest(), source.getUrl());
+        }
+    }
+
+    @Override
+    protected Class<?> findClass(String name) throws ClassNotFoundException {
+        Class<?> clazz = findLocalClass(name);
+        Queue<String> definedClasses = this.definedClasses;
+        if (definedClasses != null) {
+            definedClasses.add(name);
+        }
+        return clazz;
+    }
+
+    private Class<?> findLocalClass(final String name) throws ClassNotFoundException {
+        if (locationIndex == null) {
+            return super.findClass(name);
+        }
+        String entryName = name.replace('.', '/').concat(CLASS_RESOURCE_SUFFIX);
+        final int index = locationIndex.indexOf(entryName, 0);
+        if (index < 0) {
+            throw new ClassNotFoundException(name);
+        }
+        final JarFile jarFile = locationIndex.getJarFile(index);
+        final JarEntry entry = jarFile.getJarEntry(entryName);
         try {
-            AccessController.doPrivileged(new PrivilegedExceptionAction<Object>() {
+            return AccessController.doPrivileged(new PrivilegedExceptionAction<Class<?>>() {
                 @Override
-                public Object run() throws Exception {
-                    StringBuilder pen = new StringBuilder(packageName.length() + 10);
-                    StringBuilder cen = new StringBuilder(className.length() + 10);
-                    String packageEntryName = pen.append(packageName.replace('.', '/')).append("/")
-                        .toString();
-                    String classEntryName = cen.append(className.replace('.', '/'))
-                        .append(".class").toString();
-                    for (URL url : getURLs()) {
-                        try {
-                            URLConnection connection = url.openConnection();
-                            if (connection instanceof JarURLConnection) {
-                                JarFile jarFile = ((JarURLConnection) connection).getJarFile();
-                                if (jarFile.getEntry(classEntryName) != null
-                                    && jarFile.getEntry(packageEntryName) != null
-                                    && jarFile.getManifest() != null) {
-                                    definePackage(packageName, jarFile.getManifest(), url);
-                                    return null;
-                                }
-                            }
-                        } catch (IOException ex) {
-                            // Ignore
-                        }
-                    }
-                    return null;
+                public Class<?> run() throws IOException {
+                    return defineClass(name, jarFile, entry, locationIndex.getUrl(index));
                 }
-            }, AccessController.getContext());
-        } catch (java.security.PrivilegedActionException ex) {
-            // Ignore
+            }, acc);
+        } catch (PrivilegedActionException ex) {
+            throw new ClassNotFoundException(name, ex.getException());
+        }
+    }
+
+    private Class<?> defineClass(String name, JarFile jarFile, JarEntry entry, URL url)
+                                                                                       throws IOException {
+        byte[] bytes = readEntry(jarFile, entry);
+        int lastDot = name.lastIndexOf('.');
+        if (lastDot >= 0) {
+            definePackageIfAbsent(name.substring(0, lastDot), jarFile, url);
+        }
+        return defineClass(name, bytes, 0, bytes.length,
+            new CodeSource(url, entry.getCodeSigners()));
+    }
+
+    private byte[] readEntry(JarFile jarFile, JarEntry entry) throws IOException {
+        InputStream inputStream = jarFile.getInputStream(entry, ResourceAccess.PER_READ);
+        try {
+            long size = entry.getSize();
+            ByteArrayOutputStream outputStream = new ByteArrayOutputStream(size > 0 ? (int) size
+                : 4096);
+            byte[] buffer = new byte[4096];
+            int read;
+            while ((read = inputStream.read(buffer)) != -1) {
+                outputStream.write(buffer, 0, read);
+            }
+            return outputStream.toByteArray();
+        } finally {
+            inputStream.close();
         }
     }
 
+    /**
+     * Define the package of a class found in the given jar if absent, otherwise verify it
+     * against the sealing of the jar, as {@link URLClassLoader} does
+     * @throws SecurityException if the package is sealed by another jar, or the jar seals
+     *         the package which is already defined
+     */
+    private void definePackageIfAbsent(String packageName, JarFile jarFile, URL url)
+                                                                                    throws IOException {
+        Manifest manifest = jarFile.getManifest();
+        Package pkg = getPackage(packageName);
+        if (pkg == null) {
+            try {
+                if (manifest != null) {
+                    definePackage(packageName, manifest, url);
+                } else {
+                    definePackage(packageName, null, null, null, null, null, null, null);
+                }
+                return;
+            } catch (IllegalArgumentException ex) {
+                // Tolerate race condition due to being parallel capable
+                pkg = getPackage(packageName);
+                if (pkg == null) {
+                    return;
+                }
+            }
+        }
+        if (pkg.isSealed()) {
+            if (!pkg.isSealed(url)) {
+                throw new SecurityException("sealing violation: package " + packageName
+                                            + " is sealed");
+            }
+        } else if (manifest != null && isSealed(packageName, manifest)) {
+            throw new SecurityException("sealing violation: can't seal package " + packageName
+                                        + ": already loaded");
+        }
+    }
+
+    private boolean isSealed(String packageName, Manifest manifest) {
+        Attributes attributes = manifest.getAttributes(packageName.replace('.', '/').concat("/"));
+        String sealed = attributes == null ? null : attributes.getValue(Attributes.Name.SEALED);
+        if (sealed == null) {
+            sealed = manifest.getMainAttributes().getValue(Attributes.Name.SEALED);
+        }
+        return "true".equalsIgnoreCase(sealed);
+    }
+
+    @Override
+    public URL findResource(String name) {
+        if (locationIndex == null || !isIndexedEntry(name)) {
+            return super.findResource(name);
+        }
+        int index = locationIndex.indexOf(name, 0);
+        return index < 0 ? null : createResourceUrl(index, name);
+    }
+
+    @Override
+    public Enumeration<URL> findResources(String name) throws IOException {
+        if (locationIndex == null || !isIndexedEntry(name)) {
+            return super.findResources(name);
+        }
+        List<URL> urls = new ArrayList<>();
+        int index = locationIndex.indexOf(name, 0);
+        while (index >= 0) {
+            URL url = createResourceUrl(index, name);
+            if (url != null) {
+                urls.add(url);
+            }
+            index = locationIndex.indexOf(name, index + 1);
+        }
+        return Collections.enumeration(urls);
+    }
+
+    private boolean isIndexedEntry(String name) {
+        return !name.isEmpty() && name.charAt(0) != '/';
+    }
+
+    private URL createResourceUrl(int index, String name) {
+        try {
+            return new URL(locationIndex.getUrl(index), encodePath(name));
+        } catch (MalformedURLException ex) {
+            return null;
+        }
+    }
+
+    /**
+     * Percent-encode the characters of an entry name which are not allowed in an url path,
+     * as {@link java.net.URLClassLoader} does when it creates resource urls
+     * @param name entry name
+     * @return encoded path
+     */
+    static String encodePath(String name) {
+        int length = name.length();
+        int i = 0;
+        while (i < length && isPathChar(name.charAt(i))) {
+            i++;
+        }
+        if (i == length) {
+            return name;
+        }
+        StringBuilder builder = new StringBuilder(length + 16).append(name, 0, i);
+        for (byte b : name.substring(i).getBytes(StandardCharsets.UTF_8)) {
+            char c = (char) (b & 0xFF);
+            if (c < 0x80 && isPathChar(c)) {
+                builder.append(c);
+            } else {
+                builder.append('%').append(HEX_DIGITS[c >> 4]).append(HEX_DIGITS[c & 0xF]);
+            }
+        }
+        return builder.toString();
+    }
+
+    private static boolean isPathChar(char c) {
+        return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || (c >= '0' && c <= '9')
+               || PATH_PUNCTUATION.indexOf(c) >= 0;
+    }
+
     /**
      * Real logic to load class，need to implement by Sub Classloader
      * @param name
@@ -139,9 +350,16 @@ public abstract class AbstractClasspathClassloader extends URLClassLoader {
         if (StringUtils.isEmpty(name)) {
             return null;
         }
+        URL[] cachedUrl = resourceCache.get(name);
+        if (cachedUrl != null) {
+            return cachedUrl[0];
+        }
+        long cacheVersion = ClassloaderCacheVersion.get();
         Handler.setUseFastConnectionExceptions(true);
         try {
-            return getResourceInternal(name);
+            URL url = getResourceInternal(name);
+            resourceCache.put(name, url, cacheVersion);
+            return url;
         } finally {
             Handler.setUseFastConnectionExceptions(false);
         }
@@ -176,33 +394,103 @@ public abstract class AbstractClasspathClassloader extends URLClassLoader {
 
     @Override
     public Enumeration<URL> getResources(String name) throws IOException {
-        Handler.setUseFastConnectionExceptions(true);
-        try {
+        if (!hotResourcesCache.isHot(name)) {
             return getResourcesInternal(name);
-        } finally {
-            Handler.setUseFastConnectionExceptions(false);
         }
+        List<URL> cachedUrls = hotResourcesCache.get(name);
+        if (cachedUrls == null) {
+            long cacheVersion = ClassloaderCacheVersion.get();
+            cachedUrls = Collections.list(getResourcesInternal(name));
+            hotResourcesCache.put(name, cachedUrls, cacheVersion);
+        }
+        return Collections.enumeration(cachedUrls);
     }
 
     /**
-     * Real logic to get resources
+     * Real logic to get resources, each tier is only resolved when the enumeration reaches
+     * it, and duplicated urls are skipped
      * @param name
      * @return
      * @throws IOException
      */
-    protected Enumeration<URL> getResourcesInternal(String name) throws IOException {
-        List<Enumeration<URL>> enumerationList = new ArrayList<>();
-        // 1. find jdk resources
-        enumerationList.add(getJdkResources(name));
+    protected Enumeration<URL> getResourcesInternal(final String name) throws IOException {
+        return new ResourcesEnumeration() {
+            private List<ClassLoader> exportResourceClassloaders;
+
+            @Override
+            protected Enumeration<URL> getTier(int index) throws IOException {
+                // 1. find jdk resources
+                if (index == 0) {
+                    return getJdkResources(name);
+                }
 
-        // 2. find exported resources
-        enumerationList.add(getExportResources(name));
+                // 2. find exported resources, one tier per exporting plugin
+                if (exportResourceClassloaders == null) {
+                    exportResourceClassloaders = getExportResourceClassloaders(name);
+                }
+                int exportIndex = index - 1;
+                if (exportIndex < exportResourceClassloaders.size()) {
+                    return ((AbstractClasspathClassloader) exportResourceClassloaders
+                        .get(exportIndex)).getLocalResources(name);
+                }
 
-        // 3. find local resources
-        enumerationList.add(getLocalResources(name));
+                // 3. find local resources
+                if (exportIndex == exportResourceClassloaders.size()) {
+                    return getLocalResources(name);
+                }
+                return null;
+            }
+        };
+    }
 
-        return new CompoundEnumeration<>(
-            enumerationList.toArray((Enumeration<URL>[]) new Enumeration<?>[0]));
+    /**
+     * Stop recording defined classes
+     * @return class names defined so far in order, or null if not recording
+     */
+    public List<String> stopRecordingDefinedClasses() {
+        Queue<String> definedClasses = this.definedClasses;
+        this.definedClasses = null;
+        return definedClasses == null ? null : new ArrayList<>(definedClasses);
+    }
+
+    /**
+     * Get hit count of classes which are known not loadable
+     * @return hit count
+     */
+    public long getNegativeClassCacheHitCount() {
+        return negativeClassCache.getHitCount();
+    }
+
+    /**
+     * Get miss count of classes which are known not loadable
+     * @return miss count
+     */
+    public long getNegativeClassCacheMissCount() {
+        return negativeClassCache.getMissCount();
+    }
+
+    /**
+     * Get hit count of resource lookups served by the resource cache
+     * @return hit count
+     */
+    public long getResourceCacheHitCount() {
+        return resourceCache.getHitCount();
+    }
+
+    /**
+     * Get miss count of resource lookups not served by the resource cache
+     * @return miss count
+     */
+    public long getResourceCacheMissCount() {
+        return resourceCache.getMissCount();
+    }
+
+    /**
+     * Get hit count of hot resource lists served by cache
+     * @return hit count
+     */
+    public long getHotResourcesCacheHitCount() {
+        return hotResourcesCache.getHitCount();
     }
 
     /**
@@ -225,6 +513,11 @@ public abstract class AbstractClasspathClassloader extends URLClassLoader {
      * @return
      */
     protected Class<?> resolveJDKClass(String name) {
+        // skip the delegation only for classes proven outside JDK packages
+        if (classloaderService instanceof ClassloaderServiceImpl
+            && !((ClassloaderServiceImpl) classloaderService).isJDKPackageClass(name)) {
+            return null;
+        }
         try {
             return classloaderService.getJDKClassloader().loadClass(name);
         } catch (ClassNotFoundException e) {
@@ -363,26 +656,19 @@ public abstract class AbstractClasspathClassloader extends URLClassLoader {
     }
 
     /**
-     * Find export resources
+     * Find classloaders which export resource
      * @param resourceName
      * @return
      */
-    @SuppressWarnings("unchecked")
-    protected Enumeration<URL> getExportResources(String resourceName) throws IOException {
+    protected List<ClassLoader> getExportResourceClassloaders(String resourceName) {
         if (shouldFindExportedResource(resourceName)) {
             List<ClassLoader> exportResourceClassloadersInOrder = classloaderService
                 .findExportResourceClassloadersInOrder(resourceName);
             if (exportResourceClassloadersInOrder != null) {
-                List<Enumeration<URL>> enumerationList = new ArrayList<>();
-                for (ClassLoader exportResourceClassloader : exportResourceClassloadersInOrder) {
-                    enumerationList.add(((AbstractClasspathClassloader) exportResourceClassloader)
-                        .getLocalResources(resourceName));
-                }
-                return new CompoundEnumeration<>(
-                    enumerationList.toArray((Enumeration<URL>[]) new Enumeration<?>[0]));
+                return exportResourceClassloadersInOrder;
             }
         }
-        return Collections.emptyEnumeration();
+        return Collections.emptyList();
     }
 
     protected Enumeration<URL> getLocalResources(String resourceName) throws IOException {
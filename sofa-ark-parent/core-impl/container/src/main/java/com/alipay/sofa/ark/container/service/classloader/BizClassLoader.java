@@ -33,6 +33,10 @@ import java.util.List;
  */
 public class BizClassLoader extends AbstractClasspathClassloader {
 
+    static {
+        ClassLoader.registerAsParallelCapable();
+    }
+
     private String bizIdentity;
 
     public BizClassLoader(String bizIdentity, URL[] urls) {
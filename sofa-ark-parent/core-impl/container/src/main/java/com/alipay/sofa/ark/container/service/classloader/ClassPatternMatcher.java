@@ -0,0 +1,129 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alipay.sofa.ark.container.service.classloader;
+
+import com.alipay.sofa.ark.common.util.ClassUtils;
+import com.alipay.sofa.ark.spi.constant.Constants;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Immutable matcher compiled from package patterns and class names, such as import
+ * rules of plugin and deny-import rules of biz. Package patterns are stored in a
+ * character trie, so matching a class costs O(length of package name) and
+ * allocates nothing. It keeps the semantic of
+ * {@link ClassUtils#isAdaptedToPackagePattern(String, String)}.
+ *
+ * @author agent
+ * @since 0.6.0
+ */
+public class ClassPatternMatcher {
+
+    public static final ClassPatternMatcher EMPTY = new ClassPatternMatcher(null, null);
+
+    private final Set<String>               classNames;
+
+    private final Node                      root  = new Node();
+
+    private final boolean                   hasPattern;
+
+    public ClassPatternMatcher(Set<String> packagePatterns, Set<String> classNames) {
+        this.classNames = classNames == null || classNames.isEmpty() ? Collections
+            .<String> emptySet() : new HashSet<>(classNames);
+        boolean hasPattern = false;
+        if (packagePatterns != null) {
+            for (String pattern : packagePatterns) {
+                if (pattern.endsWith(Constants.PACKAGE_PREFIX_MARK)) {
+                    root.put(ClassUtils.getPackageName(pattern)).prefix = true;
+                } else {
+                    root.put(pattern).exact = true;
+                }
+                hasPattern = true;
+            }
+        }
+        this.hasPattern = hasPattern;
+    }
+
+    /**
+     * Whether class is matched by class names or package patterns
+     * @param className class name
+     * @return
+     */
+    public boolean matches(String className) {
+        if (classNames.contains(className)) {
+            return true;
+        }
+        if (!hasPattern) {
+            return false;
+        }
+        int index = className.lastIndexOf('.');
+        if (index > 0) {
+            return matchesPackage(className, index);
+        }
+        return matchesPackage(Constants.DEFAULT_PACKAGE, Constants.DEFAULT_PACKAGE.length());
+    }
+
+    private boolean matchesPackage(String str, int end) {
+        Node node = root;
+        for (int i = 0; i < end; ++i) {
+            if (node.prefix) {
+                return true;
+            }
+            node = node.child(str.charAt(i));
+            if (node == null) {
+                return false;
+            }
+        }
+        return node.prefix || node.exact;
+    }
+
+    private static class Node {
+        private char[]  keys     = new char[0];
+        private Node[]  children = new Node[0];
+        private boolean prefix;
+        private boolean exact;
+
+        Node child(char c) {
+            for (int i = 0; i < keys.length; ++i) {
+                if (keys[i] == c) {
+                    return children[i];
+                }
+            }
+            return null;
+        }
+
+        Node put(String str) {
+            Node node = this;
+            for (int i = 0; i < str.length(); ++i) {
+                char c = str.charAt(i);
+                Node child = node.child(c);
+                if (child == null) {
+                    child = new Node();
+                    node.keys = Arrays.copyOf(node.keys, node.keys.length + 1);
+                    node.children = Arrays.copyOf(node.children, node.children.length + 1);
+                    node.keys[node.keys.length - 1] = c;
+                    node.children[node.children.length - 1] = child;
+                }
+                node = child;
+            }
+            return node;
+        }
+    }
+}
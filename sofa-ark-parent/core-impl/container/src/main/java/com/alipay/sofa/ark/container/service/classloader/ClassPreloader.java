@@ -0,0 +1,248 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alipay.sofa.ark.container.service.classloader;
+
+import com.alipay.sofa.ark.common.log.ArkLogger;
+import com.alipay.sofa.ark.common.log.ArkLoggerFactory;
+import com.alipay.sofa.ark.common.thread.CommonThreadPool;
+import com.alipay.sofa.ark.common.util.EnvironmentUtils;
+import com.alipay.sofa.ark.spi.archive.ExecutableArchive;
+import com.alipay.sofa.ark.spi.constant.Constants;
+import com.alipay.sofa.ark.spi.model.Biz;
+import com.alipay.sofa.ark.spi.model.Plugin;
+import com.alipay.sofa.ark.spi.service.biz.BizManagerService;
+import com.alipay.sofa.ark.spi.service.plugin.PluginManagerService;
+import com.google.inject.Inject;
+import com.google.inject.Singleton;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.net.URL;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.zip.CRC32;
+
+/**
+ * Record classes defined by plugin and biz classloaders during a successful startup and
+ * preload them in background on later startups, so that reading, inflating and defining
+ * classes overlaps with the rest of the startup pipeline.
+ * <p>
+ * The class list is a text file, each section starts with {@literal plugin:<pluginName>} or
+ * {@literal biz:<bizIdentity>} followed by class names in definition order. Sections of
+ * unknown plugins or bizs and classes which can not be loaded anymore are ignored.
+ *
+ * @author agent
+ * @since 0.6.0
+ */
+@Singleton
+public class ClassPreloader {
+
+    private static final ArkLogger LOGGER                = ArkLoggerFactory.getDefaultLogger();
+
+    private static final String    PLUGIN_SECTION_PREFIX = "plugin:";
+
+    private static final String    BIZ_SECTION_PREFIX    = "biz:";
+
+    private static final String    CLASS_LIST_SUFFIX     = ".classlist";
+
+    private static final Charset   UTF_8                 = Charset.forName("UTF-8");
+
+    private static final int       BATCH_SIZE            = 256;
+
+    @Inject
+    private PluginManagerService   pluginManagerService;
+
+    @Inject
+    private BizManagerService      bizManagerService;
+
+    public static boolean isEnabled() {
+        return Boolean.parseBoolean(EnvironmentUtils.getProperty(Constants.CLASS_PRELOAD_ENABLE,
+            "false"));
+    }
+
+    /**
+     * Preload recorded classes of the given executable archive in background, must be
+     * called after plugin export classes are prepared so that imported classes are loaded
+     * by the exporting classloader.
+     * @param executableArchive the executable archive
+     */
+    public void preload(ExecutableArchive executableArchive) {
+        File classListFile = getClassListFile(executableArchive);
+        if (classListFile == null || !classListFile.isFile()) {
+            return;
+        }
+        int processors = Runtime.getRuntime().availableProcessors();
+        ThreadPoolExecutor executor = new CommonThreadPool().setCorePoolSize(processors)
+            .setMaximumPoolSize(processors).setQueueSize(-1).setDaemon(true)
+            .setThreadPoolName("ark-class-preload").getExecutor();
+        try {
+            BufferedReader reader = new BufferedReader(new InputStreamReader(new FileInputStream(
+                classListFile), UTF_8));
+            try {
+                ClassLoader classLoader = null;
+                List<String> batch = new ArrayList<>();
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    if (line.startsWith(PLUGIN_SECTION_PREFIX)
+                        || line.startsWith(BIZ_SECTION_PREFIX)) {
+                        submit(executor, classLoader, batch);
+                        batch = new ArrayList<>();
+                        classLoader = getClassLoader(line);
+                    } else if (classLoader != null && !line.isEmpty()) {
+                        batch.add(line);
+                        if (batch.size() == BATCH_SIZE) {
+                            submit(executor, classLoader, batch);
+                            batch = new ArrayList<>();
+                        }
+                    }
+                }
+                submit(executor, classLoader, batch);
+            } finally {
+                reader.close();
+            }
+        } catch (IOException ex) {
+            LOGGER.warn(String.format("Failed to read class list %s", classListFile), ex);
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    /**
+     * Persist classes defined by plugin and biz classloaders so far and stop recording.
+     * @param executableArchive the executable archive
+     */
+    public void record(ExecutableArchive executableArchive) {
+        File classListFile = getClassListFile(executableArchive);
+        if (classListFile == null) {
+            return;
+        }
+        File tempFile = new File(classListFile.getPath() + "." + UUID.randomUUID());
+        try {
+            classListFile.getParentFile().mkdirs();
+            BufferedWriter writer = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(
+                tempFile), UTF_8));
+            try {
+                for (Plugin plugin : pluginManagerService.getPluginsInOrder()) {
+                    writeSection(writer, PLUGIN_SECTION_PREFIX + plugin.getPluginName(),
+                        plugin.getPluginClassLoader());
+                }
+                for (Biz biz : bizManagerService.getBizInOrder()) {
+                    writeSection(writer, BIZ_SECTION_PREFIX + biz.getIdentity(),
+                        biz.getBizClassLoader());
+                }
+            } finally {
+                writer.close();
+            }
+            if (!tempFile.renameTo(classListFile)) {
+                classListFile.delete();
+                if (!tempFile.renameTo(classListFile)) {
+                    throw new IOException("Failed to rename " + tempFile);
+                }
+            }
+        } catch (IOException ex) {
+            tempFile.delete();
+            LOGGER.warn(String.format("Failed to record class list %s", classListFile), ex);
+        }
+    }
+
+    /**
+     * Return the class list file of the given executable archive
+     * @param executableArchive the executable archive
+     * @return the class list file, or null if the archive has no url
+     */
+    public File getClassListFile(ExecutableArchive executableArchive) {
+        URL url;
+        try {
+            url = executableArchive.getUrl();
+        } catch (Exception ex) {
+            return null;
+        }
+        String path = url.toExternalForm();
+        CRC32 crc = new CRC32();
+        crc.update(path.getBytes(UTF_8));
+        String name = new File(url.getPath()).getName() + "-" + Long.toHexString(crc.getValue())
+                      + CLASS_LIST_SUFFIX;
+        return new File(getDirectory(), name);
+    }
+
+    private File getDirectory() {
+        String directory = EnvironmentUtils.getProperty(Constants.CLASS_PRELOAD_DIRECTORY);
+        if (directory == null) {
+            return new File(System.getProperty("user.home"), ".sofa-ark" + File.separator
+                                                             + "preload");
+        }
+        return new File(directory);
+    }
+
+    private ClassLoader getClassLoader(String section) {
+        if (section.startsWith(PLUGIN_SECTION_PREFIX)) {
+            Plugin plugin = pluginManagerService.getPluginByName(section
+                .substring(PLUGIN_SECTION_PREFIX.length()));
+            return plugin == null ? null : plugin.getPluginClassLoader();
+        }
+        Biz biz = bizManagerService
+            .getBizByIdentity(section.substring(BIZ_SECTION_PREFIX.length()));
+        return biz == null ? null : biz.getBizClassLoader();
+    }
+
+    private void writeSection(BufferedWriter writer, String section, ClassLoader classLoader)
+                                                                                             throws IOException {
+        if (!(classLoader instanceof AbstractClasspathClassloader)) {
+            return;
+        }
+        List<String> classNames = ((AbstractClasspathClassloader) classLoader)
+            .stopRecordingDefinedClasses();
+        if (classNames == null) {
+            return;
+        }
+        writer.write(section);
+        writer.newLine();
+        for (String className : classNames) {
+            writer.write(className);
+            writer.newLine();
+        }
+    }
+
+    private void submit(ThreadPoolExecutor executor, final ClassLoader classLoader,
+                        final List<String> classNames) {
+        if (classLoader == null || classNames.isEmpty()) {
+            return;
+        }
+        executor.execute(new Runnable() {
+            @Override
+            public void run() {
+                for (String className : classNames) {
+                    try {
+                        classLoader.loadClass(className);
+                    } catch (ClassNotFoundException | LinkageError ex) {
+                        // class list may be stale, ignore
+                    }
+                }
+            }
+        });
+    }
+
+}
@@ -0,0 +1,47 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alipay.sofa.ark.container.service.classloader;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Version of installed plugins and biz and their import rules, classloader caches record the version they
+ * are built against and treat themselves as stale once it changes.
+ *
+ * @author agent
+ * @since 0.6.0
+ */
+public class ClassloaderCacheVersion {
+
+    private static final AtomicLong VERSION = new AtomicLong();
+
+    /**
+     * Get current version
+     * @return current version
+     */
+    public static long get() {
+        return VERSION.get();
+    }
+
+    /**
+     * Invalidate all classloader caches, called once when plugin or biz is registered or
+     * unregistered, and when plugin exports are rebuilt
+     */
+    public static void increment() {
+        VERSION.incrementAndGet();
+    }
+}
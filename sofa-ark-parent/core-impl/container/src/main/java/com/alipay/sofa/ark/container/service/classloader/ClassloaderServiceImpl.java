@@ -19,7 +19,6 @@ package com.alipay.sofa.ark.container.service.classloader;
 import com.alipay.sofa.ark.common.log.ArkLogger;
 import com.alipay.sofa.ark.common.log.ArkLoggerFactory;
 import com.alipay.sofa.ark.common.util.AssertUtils;
-import com.alipay.sofa.ark.common.util.ClassUtils;
 import com.alipay.sofa.ark.common.util.ClassloaderUtils;
 import com.alipay.sofa.ark.exception.ArkException;
 import com.alipay.sofa.ark.spi.model.Biz;
@@ -39,6 +38,7 @@ import java.security.PrivilegedAction;
 import java.util.ArrayList;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 
 /**
@@ -58,11 +58,17 @@ public class ClassloaderServiceImpl implements ClassloaderService {
     private static final List<String>                    SUN_REFLECT_GENERATED_ACCESSOR  = new ArrayList<>();
 
     /* export class and classloader relationship cache */
-    private ConcurrentHashMap<String, ClassLoader>       exportClassAndClassloaderMap    = new ConcurrentHashMap<>();
+    private volatile ExportClassIndex                    exportClassIndex                = ExportClassIndex.EMPTY;
 
     /* export cache and classloader relationship cache */
     private ConcurrentHashMap<String, List<ClassLoader>> exportResourceAndClassloaderMap = new ConcurrentHashMap<>();
 
+    /* compiled plugin import and biz deny-import rules, built lazily */
+    private volatile ClassRules                          classRules;
+
+    /* packages of JDK related class classloader, null if unknown */
+    private JDKPackageIndex                              jdkPackageIndex;
+
     private ClassLoader                                  jdkClassloader;
     private ClassLoader                                  arkClassloader;
     private ClassLoader                                  systemClassloader;
@@ -97,43 +103,36 @@ public class ClassloaderServiceImpl implements ClassloaderService {
 
     @Override
     public void prepareExportClassAndResourceCache() {
+        ExportClassIndex.Builder exportClassIndexBuilder = new ExportClassIndex.Builder();
         for (Plugin plugin : pluginManagerService.getPluginsInOrder()) {
-            for (String exportIndex : plugin.getExportIndex()) {
-                exportClassAndClassloaderMap
-                    .putIfAbsent(exportIndex, plugin.getPluginClassLoader());
-            }
+            exportClassIndexBuilder.addExportClasses(plugin.getPluginClassLoader(),
+                plugin.getExportIndex());
             for (String resource : plugin.getExportResources()) {
                 exportResourceAndClassloaderMap
                     .putIfAbsent(resource, new LinkedList<ClassLoader>());
                 exportResourceAndClassloaderMap.get(resource).add(plugin.getPluginClassLoader());
             }
         }
+        exportClassIndex = exportClassIndexBuilder.build();
+        ClassloaderCacheVersion.increment();
     }
 
     @Override
     public boolean isClassInImport(String pluginName, String className) {
-        Plugin plugin = pluginManagerService.getPluginByName(pluginName);
-        AssertUtils.assertNotNull(plugin, "plugin: " + pluginName + " is null");
-
-        for (String importName : plugin.getImportClasses()) {
-            if (className.equals(importName)) {
-                return true;
-            }
-        }
-
-        String pkg = ClassUtils.getPackageName(className);
-        for (String pattern : plugin.getImportPackages()) {
-            if (ClassUtils.isAdaptedToPackagePattern(pkg, pattern)) {
-                return true;
-            }
+        ClassRules rules = getClassRules();
+        ImportRule importRule = rules.pluginImports.get(pluginName);
+        if (importRule == null || importRule.isStale()) {
+            Plugin plugin = pluginManagerService.getPluginByName(pluginName);
+            AssertUtils.assertNotNull(plugin, "plugin: " + pluginName + " is null");
+            importRule = new ImportRule(plugin);
+            rules.pluginImports.put(pluginName, importRule);
         }
-
-        return false;
+        return importRule.matcher.matches(className);
     }
 
     @Override
     public ClassLoader findExportClassloader(String className) {
-        return exportClassAndClassloaderMap.get(className);
+        return exportClassIndex.findClassloader(className);
     }
 
     @Override
@@ -154,6 +153,17 @@ public class ClassloaderServiceImpl implements ClassloaderService {
         return exportResourceAndClassloaderMap.get(resourceName);
     }
 
+    /**
+     * Whether class may be provided by JDK related class classloader, only false for
+     * classes proven outside every JDK package, always true if JDK packages can not be
+     * listed
+     * @param className class name
+     * @return
+     */
+    boolean isJDKPackageClass(String className) {
+        return jdkPackageIndex == null || jdkPackageIndex.contains(className);
+    }
+
     @Override
     public ClassLoader getJDKClassloader() {
         return jdkClassloader;
@@ -202,6 +212,11 @@ public class ClassloaderServiceImpl implements ClassloaderService {
         }
 
         jdkClassloader = new JDKDelegateClassloader(jdkUrls.toArray(new URL[0]), extClassloader);
+        jdkPackageIndex = JDKPackageIndex.create(jdkUrls, ClassloaderUtils.getAgentClassPath());
+        if (LOGGER.isDebugEnabled()) {
+            LOGGER.debug(String.format("Find JDK packages: %s", jdkPackageIndex == null ? "unknown"
+                : jdkPackageIndex.getPackageCount()));
+        }
     }
 
     @Override
@@ -215,25 +230,13 @@ public class ClassloaderServiceImpl implements ClassloaderService {
 
     @Override
     public boolean isDeniedImportClass(String bizIdentity, String className) {
-        Biz biz = bizManagerService.getBizByIdentity(bizIdentity);
-        if (biz == null) {
-            return false;
-        }
-
-        String pkg = ClassUtils.getPackageName(className);
-        for (String pkgPattern : biz.getDenyImportPackages()) {
-            if (ClassUtils.isAdaptedToPackagePattern(pkg, pkgPattern)) {
-                return true;
-            }
+        ClassRules rules = getClassRules();
+        DenyImportRule denyImportRule = rules.bizDenyImports.get(bizIdentity);
+        if (denyImportRule == null || denyImportRule.isStale()) {
+            denyImportRule = new DenyImportRule(bizManagerService.getBizByIdentity(bizIdentity));
+            rules.bizDenyImports.put(bizIdentity, denyImportRule);
         }
-
-        for (String clazz : biz.getDenyImportClasses()) {
-            if (clazz.equals(className)) {
-                return true;
-            }
-        }
-
-        return false;
+        return denyImportRule.matcher.matches(className);
     }
 
     @Override
@@ -256,4 +259,75 @@ public class ClassloaderServiceImpl implements ClassloaderService {
     public int getPriority() {
         return DEFAULT_PRECEDENCE;
     }
+
+    /**
+     * Get compiled class rules, they are replaced as a whole once plugins or biz are
+     * registered or unregistered, and a single rule once the import rules of its plugin or
+     * biz are set again
+     * @return
+     */
+    private ClassRules getClassRules() {
+        ClassRules rules = classRules;
+        long version = ClassloaderCacheVersion.get();
+        if (rules == null || rules.version != version) {
+            rules = new ClassRules(version);
+            classRules = rules;
+        }
+        return rules;
+    }
+
+    private static class ClassRules {
+        private final long                                      version;
+        private final ConcurrentHashMap<String, ImportRule>     pluginImports  = new ConcurrentHashMap<>();
+        private final ConcurrentHashMap<String, DenyImportRule> bizDenyImports = new ConcurrentHashMap<>();
+
+        ClassRules(long version) {
+            this.version = version;
+        }
+    }
+
+    /**
+     * Import rule of a plugin, compiled from the rule sets the plugin currently holds.
+     * Setters replace the sets, so a rule is stale once they are no longer the same.
+     */
+    private static class ImportRule {
+        private final Plugin              plugin;
+        private final Set<String>         packages;
+        private final Set<String>         classes;
+        private final ClassPatternMatcher matcher;
+
+        ImportRule(Plugin plugin) {
+            this.plugin = plugin;
+            this.packages = plugin.getImportPackages();
+            this.classes = plugin.getImportClasses();
+            this.matcher = new ClassPatternMatcher(packages, classes);
+        }
+
+        boolean isStale() {
+            return plugin.getImportPackages() != packages || plugin.getImportClasses() != classes;
+        }
+    }
+
+    /**
+     * Deny-import rule of a biz, stale once the biz holds other rule sets
+     */
+    private static class DenyImportRule {
+        private final Biz                 biz;
+        private final Set<String>         packages;
+        private final Set<String>         classes;
+        private final ClassPatternMatcher matcher;
+
+        DenyImportRule(Biz biz) {
+            this.biz = biz;
+            this.packages = biz == null ? null : biz.getDenyImportPackages();
+            this.classes = biz == null ? null : biz.getDenyImportClasses();
+            this.matcher = biz == null ? ClassPatternMatcher.EMPTY : new ClassPatternMatcher(
+                packages, classes);
+        }
+
+        boolean isStale() {
+            return biz != null
+                   && (biz.getDenyImportPackages() != packages || biz.getDenyImportClasses() != classes);
+        }
+    }
 }
\ No newline at end of file
@@ -0,0 +1,183 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alipay.sofa.ark.container.service.classloader;
+
+import com.alipay.sofa.ark.common.util.CompactStringSet;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Immutable index from exported class to the plugin classloader which exports it.
+ * <p>
+ * Instead of one map entry per class, classes are grouped by package. Each package
+ * keeps the exporting classloaders in plugin order, and for each of them the simple
+ * names of exported classes in a {@link CompactStringSet}. Only packages
+ * split across plugins hold more than one classloader. Lookup hashes the package
+ * part of class name in place and binary searches the simple name, so it allocates
+ * nothing.
+ *
+ * @author agent
+ * @since 0.6.0
+ */
+public class ExportClassIndex {
+
+    public static final ExportClassIndex EMPTY = new Builder().build();
+
+    private final String[]               packages;
+
+    private final PackageExport[][]      exports;
+
+    private final int                    classCount;
+
+    private ExportClassIndex(Map<String, Map<ClassLoader, List<String>>> packageClasses) {
+        int capacity = 16;
+        while (capacity < packageClasses.size() * 2) {
+            capacity <<= 1;
+        }
+        this.packages = new String[capacity];
+        this.exports = new PackageExport[capacity][];
+        int classCount = 0;
+        for (Map.Entry<String, Map<ClassLoader, List<String>>> entry : packageClasses.entrySet()) {
+            String pkg = entry.getKey();
+            List<PackageExport> packageExports = new ArrayList<>();
+            for (Map.Entry<ClassLoader, List<String>> classes : entry.getValue().entrySet()) {
+                PackageExport packageExport = new PackageExport(classes.getKey(),
+                    classes.getValue());
+                classCount += packageExport.simpleNames.size();
+                packageExports.add(packageExport);
+            }
+            int slot = hash(pkg, 0, pkg.length()) & (capacity - 1);
+            while (packages[slot] != null) {
+                slot = (slot + 1) & (capacity - 1);
+            }
+            packages[slot] = pkg;
+            exports[slot] = packageExports.toArray(new PackageExport[packageExports.size()]);
+        }
+        this.classCount = classCount;
+    }
+
+    /**
+     * Find classloader which exports the class
+     * @param className class name
+     * @return classloader or null if class is not exported
+     */
+    public ClassLoader findClassloader(String className) {
+        int pkgEnd = className.lastIndexOf('.');
+        int nameStart = pkgEnd + 1;
+        if (pkgEnd < 0) {
+            pkgEnd = 0;
+        }
+        int mask = packages.length - 1;
+        int slot = hash(className, 0, pkgEnd) & mask;
+        for (String pkg = packages[slot]; pkg != null; pkg = packages[slot]) {
+            if (pkg.length() == pkgEnd && className.regionMatches(0, pkg, 0, pkgEnd)) {
+                for (PackageExport packageExport : exports[slot]) {
+                    if (packageExport.simpleNames.contains(className, nameStart)) {
+                        return packageExport.classLoader;
+                    }
+                }
+                return null;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return null;
+    }
+
+    /**
+     * Get count of exported classes in this index, a class exported by several
+     * classloaders is counted once for each of them
+     * @return class count
+     */
+    public int getClassCount() {
+        return classCount;
+    }
+
+    /**
+     * Get count of exported packages in this index
+     * @return package count
+     */
+    public int getPackageCount() {
+        int count = 0;
+        for (String pkg : packages) {
+            if (pkg != null) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    private static int hash(String str, int start, int end) {
+        int h = 0;
+        for (int i = start; i < end; ++i) {
+            h = 31 * h + str.charAt(i);
+        }
+        return h ^ (h >>> 16);
+    }
+
+    /**
+     * Classes in one package exported by one classloader
+     */
+    private static class PackageExport {
+        private final ClassLoader      classLoader;
+
+        private final CompactStringSet simpleNames;
+
+        PackageExport(ClassLoader classLoader, List<String> simpleNames) {
+            this.classLoader = classLoader;
+            this.simpleNames = new CompactStringSet(simpleNames);
+        }
+    }
+
+    public static class Builder {
+        private final Map<String, Map<ClassLoader, List<String>>> packageClasses = new LinkedHashMap<>();
+
+        /**
+         * Add exported classes of a classloader, classloaders added earlier take precedence
+         * @param classLoader exporting classloader
+         * @param classNames exported class names
+         * @return this builder
+         */
+        public Builder addExportClasses(ClassLoader classLoader, Iterable<String> classNames) {
+            if (classNames == null) {
+                return this;
+            }
+            for (String className : classNames) {
+                int index = className.lastIndexOf('.');
+                String pkg = index < 0 ? "" : className.substring(0, index);
+                Map<ClassLoader, List<String>> classes = packageClasses.get(pkg);
+                if (classes == null) {
+                    classes = new LinkedHashMap<>();
+                    packageClasses.put(pkg, classes);
+                }
+                List<String> simpleNames = classes.get(classLoader);
+                if (simpleNames == null) {
+                    simpleNames = new ArrayList<>();
+                    classes.put(classLoader, simpleNames);
+                }
+                simpleNames.add(className.substring(index + 1));
+            }
+            return this;
+        }
+
+        public ExportClassIndex build() {
+            return new ExportClassIndex(packageClasses);
+        }
+    }
+}
@@ -0,0 +1,129 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alipay.sofa.ark.container.service.classloader;
+
+import com.alipay.sofa.ark.common.util.EnvironmentUtils;
+import com.alipay.sofa.ark.common.util.StripedCounter;
+import com.alipay.sofa.ark.common.util.StringUtils;
+
+import java.net.URL;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static com.alipay.sofa.ark.spi.constant.Constants.*;
+
+/**
+ * Cache of the resolved resource list of hot resource names, such as
+ * {@literal META-INF/spring.factories}, which are enumerated again and again by
+ * {@code SpringFactoriesLoader} and the like. Entries are only valid while the
+ * {@link ClassloaderCacheVersion} they were resolved against, which each entry records,
+ * is current.
+ *
+ * @author agent
+ * @since 0.6.0
+ */
+public class HotResourcesCache {
+
+    private final Set<String>                      names;
+
+    private final ConcurrentHashMap<String, Entry> resources = new ConcurrentHashMap<>();
+
+    private volatile long                          version   = ClassloaderCacheVersion.get();
+
+    private final StripedCounter                   hitCount  = new StripedCounter();
+
+    private final StripedCounter                   missCount = new StripedCounter();
+
+    public HotResourcesCache() {
+        this(StringUtils.strToSet(EnvironmentUtils.getProperty(HOT_RESOURCES_CACHE_NAMES,
+            DEFAULT_HOT_RESOURCES_CACHE_NAMES), ","));
+    }
+
+    public HotResourcesCache(Set<String> names) {
+        this.names = names == null ? Collections.<String> emptySet() : new HashSet<>(names);
+    }
+
+    /**
+     * Whether the resource list of given name should be cached
+     * @param name resource name
+     * @return true if hot
+     */
+    public boolean isHot(String name) {
+        return names.contains(name);
+    }
+
+    /**
+     * Get resource list resolved against current version
+     * @param name resource name
+     * @return unmodifiable resource list, or null if not cached
+     */
+    public List<URL> get(String name) {
+        long currentVersion = checkVersion();
+        Entry entry = resources.get(name);
+        if (entry != null && entry.version == currentVersion) {
+            hitCount.increment();
+            return entry.urls;
+        }
+        missCount.increment();
+        return null;
+    }
+
+    /**
+     * Record resolved resource list
+     * @param name resource name
+     * @param urls resolved resource list
+     * @param loadVersion {@link ClassloaderCacheVersion} read before the resources are looked up
+     */
+    public void put(String name, List<URL> urls, long loadVersion) {
+        if (checkVersion() != loadVersion) {
+            return;
+        }
+        resources.put(name, new Entry(Collections.unmodifiableList(urls), loadVersion));
+    }
+
+    public long getHitCount() {
+        return hitCount.get();
+    }
+
+    public long getMissCount() {
+        return missCount.get();
+    }
+
+    private long checkVersion() {
+        long currentVersion = ClassloaderCacheVersion.get();
+        if (version != currentVersion) {
+            version = currentVersion;
+            resources.clear();
+        }
+        return currentVersion;
+    }
+
+    private static class Entry {
+
+        private final List<URL> urls;
+
+        private final long      version;
+
+        Entry(List<URL> urls, long version) {
+            this.urls = urls;
+            this.version = version;
+        }
+    }
+}
@@ -27,6 +27,10 @@ import java.net.URLClassLoader;
  */
 public class JDKDelegateClassloader extends URLClassLoader {
 
+    static {
+        ClassLoader.registerAsParallelCapable();
+    }
+
     public JDKDelegateClassloader(URL[] urls, ClassLoader parent) {
         super(urls, parent);
     }
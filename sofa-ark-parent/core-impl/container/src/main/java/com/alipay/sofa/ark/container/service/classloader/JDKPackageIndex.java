@@ -0,0 +1,156 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alipay.sofa.ark.container.service.classloader;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.Enumeration;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+/**
+ * Immutable set of packages which can be loaded by the JDK delegate classloader, built
+ * once from the boot class path, the extension directories and the JDK urls found on the
+ * system classpath. Packages of java agent jars are included too, as agents may append
+ * them to the bootstrap classpath at runtime. Names outside these packages are proven not
+ * to be JDK classes and can skip the JDK delegation, which otherwise walks the ext and
+ * bootstrap classloaders and throws a {@link ClassNotFoundException} for every
+ * application class.
+ *
+ * @author agent
+ * @since 0.6.0
+ */
+public class JDKPackageIndex {
+
+    private static final String CLASS_SUFFIX = ".class";
+
+    private final Set<String>   packages;
+
+    private JDKPackageIndex(Set<String> packages) {
+        this.packages = packages;
+    }
+
+    /**
+     * Create the index of the running JDK
+     * @param jdkUrls JDK urls on the system classpath
+     * @param agentUrls java agent urls, packages of agent jars are kept as they may be
+     * appended to the bootstrap classpath at runtime
+     * @return the index, or null if the JDK class path can not be listed, e.g. on JDK 9+
+     */
+    public static JDKPackageIndex create(List<URL> jdkUrls, URL[] agentUrls) {
+        String bootClassPath = System.getProperty("sun.boot.class.path");
+        if (bootClassPath == null) {
+            return null;
+        }
+        List<File> files = new ArrayList<>();
+        for (String path : bootClassPath.split(File.pathSeparator)) {
+            files.add(new File(path));
+        }
+        String extDirs = System.getProperty("java.ext.dirs");
+        if (extDirs != null) {
+            for (String path : extDirs.split(File.pathSeparator)) {
+                File[] extFiles = new File(path).listFiles();
+                if (extFiles != null) {
+                    for (File extFile : extFiles) {
+                        if (extFile.getName().endsWith(".jar")) {
+                            files.add(extFile);
+                        }
+                    }
+                }
+            }
+        }
+        try {
+            for (URL url : jdkUrls) {
+                if (!"file".equals(url.getProtocol())) {
+                    return null;
+                }
+                files.add(new File(url.toURI()));
+            }
+            for (URL url : agentUrls) {
+                // only jar files can be appended to the bootstrap classpath
+                File file = "file".equals(url.getProtocol()) ? new File(url.toURI()) : null;
+                if (file != null && file.isFile()) {
+                    files.add(file);
+                }
+            }
+            Set<String> packages = new HashSet<>();
+            for (File file : files) {
+                if (file.isDirectory()) {
+                    addDirectoryPackages(packages, file, "");
+                } else if (file.isFile()) {
+                    addJarPackages(packages, file);
+                }
+            }
+            return new JDKPackageIndex(packages);
+        } catch (IOException | URISyntaxException | IllegalArgumentException ex) {
+            return null;
+        }
+    }
+
+    /**
+     * Whether the class is in a package provided by the JDK
+     * @param className class name
+     * @return true if the package is known
+     */
+    public boolean contains(String className) {
+        int index = className.lastIndexOf('.');
+        return packages.contains(index < 0 ? "" : className.substring(0, index));
+    }
+
+    public int getPackageCount() {
+        return packages.size();
+    }
+
+    private static void addJarPackages(Set<String> packages, File file) throws IOException {
+        ZipFile zipFile = new ZipFile(file);
+        try {
+            Enumeration<? extends ZipEntry> entries = zipFile.entries();
+            while (entries.hasMoreElements()) {
+                String name = entries.nextElement().getName();
+                if (name.endsWith(CLASS_SUFFIX)) {
+                    int index = name.lastIndexOf('/');
+                    packages.add(index < 0 ? "" : name.substring(0, index).replace('/', '.'));
+                }
+            }
+        } finally {
+            zipFile.close();
+        }
+    }
+
+    private static void addDirectoryPackages(Set<String> packages, File directory,
+                                             String packageName) {
+        File[] files = directory.listFiles();
+        if (files == null) {
+            return;
+        }
+        for (File file : files) {
+            if (file.isDirectory()) {
+                addDirectoryPackages(packages, file, packageName.isEmpty() ? file.getName()
+                    : packageName + "." + file.getName());
+            } else if (file.getName().endsWith(CLASS_SUFFIX)) {
+                packages.add(packageName);
+            }
+        }
+    }
+
+}
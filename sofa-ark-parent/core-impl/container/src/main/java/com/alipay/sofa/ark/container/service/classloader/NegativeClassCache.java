@@ -0,0 +1,113 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alipay.sofa.ark.container.service.classloader;
+
+import com.alipay.sofa.ark.common.util.EnvironmentUtils;
+import com.alipay.sofa.ark.common.util.StripedCounter;
+
+import java.util.concurrent.ConcurrentHashMap;
+
+import static com.alipay.sofa.ark.spi.constant.Constants.*;
+
+/**
+ * Bounded cache of class names which can not be loaded by a classloader. Each entry
+ * records the {@link ClassloaderCacheVersion} it was resolved against and is only
+ * valid while that version is current.
+ *
+ * @author agent
+ * @since 0.6.0
+ */
+public class NegativeClassCache {
+
+    private final ConcurrentHashMap<String, Long> classNames = new ConcurrentHashMap<>();
+
+    private final int                             maxSize;
+
+    private volatile long                         version    = ClassloaderCacheVersion.get();
+
+    private final StripedCounter                  hitCount   = new StripedCounter();
+
+    private final StripedCounter                  missCount  = new StripedCounter();
+
+    public NegativeClassCache() {
+        this(Integer.valueOf(EnvironmentUtils.getProperty(NEGATIVE_CLASS_CACHE_SIZE,
+            String.valueOf(DEFAULT_NEGATIVE_CLASS_CACHE_SIZE))));
+    }
+
+    public NegativeClassCache(int maxSize) {
+        this.maxSize = maxSize;
+    }
+
+    /**
+     * Whether class is known not loadable
+     * @param className class name
+     * @return true if class is cached as not found
+     */
+    public boolean contains(String className) {
+        if (maxSize <= 0) {
+            return false;
+        }
+        long currentVersion = checkVersion();
+        Long entryVersion = classNames.get(className);
+        if (entryVersion != null && entryVersion == currentVersion) {
+            hitCount.increment();
+            return true;
+        }
+        missCount.increment();
+        return false;
+    }
+
+    /**
+     * Record class which can not be loaded
+     * @param className class name
+     * @param loadVersion {@link ClassloaderCacheVersion} read before the class is looked up
+     */
+    public void add(String className, long loadVersion) {
+        if (maxSize <= 0 || checkVersion() != loadVersion) {
+            return;
+        }
+        if (classNames.size() >= maxSize) {
+            classNames.clear();
+        }
+        classNames.put(className, loadVersion);
+    }
+
+    public void clear() {
+        classNames.clear();
+    }
+
+    public int size() {
+        return classNames.size();
+    }
+
+    public long getHitCount() {
+        return hitCount.get();
+    }
+
+    public long getMissCount() {
+        return missCount.get();
+    }
+
+    private long checkVersion() {
+        long currentVersion = ClassloaderCacheVersion.get();
+        if (version != currentVersion) {
+            version = currentVersion;
+            classNames.clear();
+        }
+        return currentVersion;
+    }
+}
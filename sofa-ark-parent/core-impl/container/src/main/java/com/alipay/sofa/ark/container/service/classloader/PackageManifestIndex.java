@@ -0,0 +1,165 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alipay.sofa.ark.container.service.classloader;
+
+import com.alipay.sofa.ark.loader.jar.JarEntryLocationIndex;
+
+import java.io.IOException;
+import java.net.JarURLConnection;
+import java.net.URL;
+import java.net.URLConnection;
+import java.security.AccessController;
+import java.security.PrivilegedAction;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.jar.JarFile;
+import java.util.jar.Manifest;
+
+/**
+ * Per classloader index of package name to the jars which declare the package directory
+ * and carry a manifest, used to define packages without reopening every classpath url.
+ * The jars of a package are resolved lazily once, through the {@link JarEntryLocationIndex}
+ * when available.
+ *
+ * @author agent
+ * @since 0.6.0
+ */
+public class PackageManifestIndex {
+
+    private static final PackageSource[]                     NO_SOURCES     = new PackageSource[0];
+
+    private final URL[]                                      urls;
+
+    private final JarEntryLocationIndex                      locationIndex;
+
+    private final ConcurrentHashMap<String, PackageSource[]> packageSources = new ConcurrentHashMap<>();
+
+    private volatile JarFile[]                               jarFiles;
+
+    public PackageManifestIndex(URL[] urls, JarEntryLocationIndex locationIndex) {
+        this.urls = urls;
+        this.locationIndex = locationIndex;
+    }
+
+    /**
+     * Find the first jar which contains both the class and its package directory and
+     * has a manifest, in classpath order.
+     * @param className class name
+     * @param packageName package name of the class
+     * @return the package source, or null if no jar matches
+     */
+    public PackageSource getPackageSource(String className, String packageName) {
+        PackageSource[] sources = packageSources.get(packageName);
+        if (sources == null) {
+            sources = createPackageSources(packageName);
+            packageSources.putIfAbsent(packageName, sources);
+        }
+        if (sources.length == 0) {
+            return null;
+        }
+        String classEntryName = className.replace('.', '/').concat(".class");
+        for (PackageSource source : sources) {
+            if (source.jarFile.getEntry(classEntryName) != null) {
+                return source;
+            }
+        }
+        return null;
+    }
+
+    private PackageSource[] createPackageSources(String packageName) {
+        String packageEntryName = packageName.replace('.', '/').concat("/");
+        List<PackageSource> sources = new ArrayList<>();
+        if (locationIndex != null) {
+            int index = locationIndex.indexOf(packageEntryName, 0);
+            while (index >= 0) {
+                addPackageSource(sources, locationIndex.getUrl(index),
+                    locationIndex.getJarFile(index));
+                index = locationIndex.indexOf(packageEntryName, index + 1);
+            }
+        } else {
+            JarFile[] jarFiles = getJarFiles();
+            for (int i = 0; i < jarFiles.length; i++) {
+                if (jarFiles[i] != null && jarFiles[i].getEntry(packageEntryName) != null) {
+                    addPackageSource(sources, urls[i], jarFiles[i]);
+                }
+            }
+        }
+        return sources.isEmpty() ? NO_SOURCES : sources.toArray(new PackageSource[sources.size()]);
+    }
+
+    private void addPackageSource(List<PackageSource> sources, URL url, JarFile jarFile) {
+        try {
+            Manifest manifest = jarFile.getManifest();
+            if (manifest != null) {
+                sources.add(new PackageSource(url, jarFile, manifest));
+            }
+        } catch (IOException ex) {
+            // Ignore
+        }
+    }
+
+    private JarFile[] getJarFiles() {
+        if (jarFiles == null) {
+            jarFiles = AccessController.doPrivileged(new PrivilegedAction<JarFile[]>() {
+                @Override
+                public JarFile[] run() {
+                    JarFile[] jarFiles = new JarFile[urls.length];
+                    for (int i = 0; i < urls.length; i++) {
+                        try {
+                            URLConnection connection = urls[i].openConnection();
+                            if (connection instanceof JarURLConnection) {
+                                jarFiles[i] = ((JarURLConnection) connection).getJarFile();
+                            }
+                        } catch (IOException ex) {
+                            // Ignore
+                        }
+                    }
+                    return jarFiles;
+                }
+            }, AccessController.getContext());
+        }
+        return jarFiles;
+    }
+
+    /**
+     * Jar url and manifest to define a package with
+     */
+    public static class PackageSource {
+
+        private final URL      url;
+
+        private final JarFile  jarFile;
+
+        private final Manifest manifest;
+
+        PackageSource(URL url, JarFile jarFile, Manifest manifest) {
+            this.url = url;
+            this.jarFile = jarFile;
+            this.manifest = manifest;
+        }
+
+        public URL getUrl() {
+            return url;
+        }
+
+        public Manifest getManifest() {
+            return manifest;
+        }
+    }
+
+}
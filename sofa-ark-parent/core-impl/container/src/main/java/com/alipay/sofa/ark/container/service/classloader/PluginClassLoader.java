@@ -33,6 +33,10 @@ import java.util.List;
  */
 public class PluginClassLoader extends AbstractClasspathClassloader {
 
+    static {
+        ClassLoader.registerAsParallelCapable();
+    }
+
     private String pluginName;
 
     public PluginClassLoader(String pluginName, URL[] urls) {
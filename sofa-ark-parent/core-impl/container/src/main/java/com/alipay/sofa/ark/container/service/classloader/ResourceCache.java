@@ -0,0 +1,137 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alipay.sofa.ark.container.service.classloader;
+
+import com.alipay.sofa.ark.common.util.EnvironmentUtils;
+import com.alipay.sofa.ark.common.util.StripedCounter;
+
+import java.net.URL;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static com.alipay.sofa.ark.spi.constant.Constants.*;
+
+/**
+ * Bounded cache of resource name to the url resolved by a classloader, or to absent if no
+ * classloader in the delegation chain has it. Like {@link NegativeClassCache}, entries are
+ * only valid while the {@link ClassloaderCacheVersion} they were resolved against is current,
+ * which each entry records, and the cache is cleared once it is full.
+ *
+ * @author agent
+ * @since 0.6.0
+ */
+public class ResourceCache {
+
+    private static final URL[]                     ABSENT    = new URL[] { null };
+
+    private final ConcurrentHashMap<String, Entry> resources = new ConcurrentHashMap<>();
+
+    private final int                              maxSize;
+
+    private volatile long                          version   = ClassloaderCacheVersion.get();
+
+    private final StripedCounter                   hitCount  = new StripedCounter();
+
+    private final StripedCounter                   missCount = new StripedCounter();
+
+    public ResourceCache() {
+        this(
+            Boolean.parseBoolean(EnvironmentUtils.getProperty(RESOURCE_CACHE_ENABLE, "false")) ? Integer
+                .valueOf(EnvironmentUtils.getProperty(RESOURCE_CACHE_SIZE,
+                    String.valueOf(DEFAULT_RESOURCE_CACHE_SIZE))) : 0);
+    }
+
+    public ResourceCache(int maxSize) {
+        this.maxSize = maxSize;
+    }
+
+    public boolean isEnabled() {
+        return maxSize > 0;
+    }
+
+    /**
+     * Get the resource resolved against current version
+     * @param name resource name
+     * @return one element array holding the url, or null if the resource is absent. Null if
+     *         the resource is not cached
+     */
+    public URL[] get(String name) {
+        if (maxSize <= 0) {
+            return null;
+        }
+        long currentVersion = checkVersion();
+        Entry entry = resources.get(name);
+        if (entry != null && entry.version == currentVersion) {
+            hitCount.increment();
+            return entry.url;
+        }
+        missCount.increment();
+        return null;
+    }
+
+    /**
+     * Record resolved resource
+     * @param name resource name
+     * @param url resolved url, null if absent
+     * @param loadVersion {@link ClassloaderCacheVersion} read before the resource is looked up
+     */
+    public void put(String name, URL url, long loadVersion) {
+        if (maxSize <= 0 || checkVersion() != loadVersion) {
+            return;
+        }
+        if (resources.size() >= maxSize) {
+            resources.clear();
+        }
+        resources.put(name, new Entry(url == null ? ABSENT : new URL[] { url }, loadVersion));
+    }
+
+    public void clear() {
+        resources.clear();
+    }
+
+    public int size() {
+        return resources.size();
+    }
+
+    public long getHitCount() {
+        return hitCount.get();
+    }
+
+    public long getMissCount() {
+        return missCount.get();
+    }
+
+    private long checkVersion() {
+        long currentVersion = ClassloaderCacheVersion.get();
+        if (version != currentVersion) {
+            version = currentVersion;
+            resources.clear();
+        }
+        return currentVersion;
+    }
+
+    private static class Entry {
+
+        private final URL[] url;
+
+        private final long  version;
+
+        Entry(URL[] url, long version) {
+            this.url = url;
+            this.version = version;
+        }
+    }
+}
@@ -0,0 +1,118 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alipay.sofa.ark.container.service.classloader;
+
+import com.alipay.sofa.ark.loader.jar.Handler;
+
+import java.io.IOException;
+import java.net.URL;
+import java.util.Enumeration;
+import java.util.HashSet;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * Enumeration of resources over the tiers of a classloader delegation chain. A tier is only
+ * resolved once the previous ones are exhausted, and urls already returned by an earlier
+ * tier, i.e. the same entry of the same jar, are skipped.
+ *
+ * @author agent
+ * @since 0.6.0
+ */
+public abstract class ResourcesEnumeration implements Enumeration<URL> {
+
+    private int              tierIndex;
+
+    private Enumeration<URL> tier;
+
+    private URL              next;
+
+    private String           firstUrl;
+
+    private Set<String>      returnedUrls;
+
+    /**
+     * Resolve the tier of given index
+     * @param index tier index, starts from 0
+     * @return resources of the tier, or null if there are no more tiers
+     * @throws IOException
+     */
+    protected abstract Enumeration<URL> getTier(int index) throws IOException;
+
+    @Override
+    public boolean hasMoreElements() {
+        Handler.setUseFastConnectionExceptions(true);
+        try {
+            return findNext();
+        } finally {
+            Handler.setUseFastConnectionExceptions(false);
+        }
+    }
+
+    @Override
+    public URL nextElement() {
+        if (!hasMoreElements()) {
+            throw new NoSuchElementException();
+        }
+        URL url = next;
+        next = null;
+        return url;
+    }
+
+    private boolean findNext() {
+        while (next == null) {
+            if (tier != null && tier.hasMoreElements()) {
+                URL url = tier.nextElement();
+                if (markReturned(url)) {
+                    next = url;
+                }
+                continue;
+            }
+            if (tierIndex < 0) {
+                return false;
+            }
+            try {
+                tier = getTier(tierIndex++);
+            } catch (IOException ex) {
+                // same as an empty tier, the remaining tiers are still searched
+                tier = null;
+                continue;
+            }
+            if (tier == null) {
+                tierIndex = -1;
+            }
+        }
+        return true;
+    }
+
+    private boolean markReturned(URL url) {
+        String externalForm = url.toExternalForm();
+        if (firstUrl == null) {
+            firstUrl = externalForm;
+            return true;
+        }
+        if (returnedUrls == null) {
+            if (firstUrl.equals(externalForm)) {
+                return false;
+            }
+            returnedUrls = new HashSet<>();
+            returnedUrls.add(firstUrl);
+        }
+        return returnedUrls.add(externalForm);
+    }
+
+}
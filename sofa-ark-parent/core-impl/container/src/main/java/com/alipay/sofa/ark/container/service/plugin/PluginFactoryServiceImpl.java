@@ -23,6 +23,7 @@ import com.alipay.sofa.ark.container.service.classloader.PluginClassLoader;
 import com.alipay.sofa.ark.loader.JarPluginArchive;
 import com.alipay.sofa.ark.loader.archive.JarFileArchive;
 import com.alipay.sofa.ark.loader.jar.JarFile;
+import com.alipay.sofa.ark.spi.archive.AbstractArchive;
 import com.alipay.sofa.ark.spi.archive.Archive;
 import com.alipay.sofa.ark.spi.archive.PluginArchive;
 import com.alipay.sofa.ark.spi.constant.Constants;
@@ -81,6 +82,9 @@ public class PluginFactoryServiceImpl implements PluginFactoryService {
     }
 
     private boolean isArkPlugin(PluginArchive pluginArchive) {
+        if (pluginArchive instanceof AbstractArchive) {
+            return ((AbstractArchive) pluginArchive).isEntryExist(Constants.ARK_PLUGIN_MARK_ENTRY);
+        }
         return pluginArchive.isEntryExist(new Archive.EntryFilter() {
             @Override
             public boolean matches(Archive.Entry entry) {
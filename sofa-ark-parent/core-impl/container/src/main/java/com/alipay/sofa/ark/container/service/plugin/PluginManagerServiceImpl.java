@@ -17,6 +17,7 @@
 package com.alipay.sofa.ark.container.service.plugin;
 
 import com.alipay.sofa.ark.common.util.OrderComparator;
+import com.alipay.sofa.ark.container.service.classloader.ClassloaderCacheVersion;
 import com.alipay.sofa.ark.exception.ArkException;
 import com.alipay.sofa.ark.spi.service.plugin.PluginManagerService;
 import com.alipay.sofa.ark.spi.model.Plugin;
@@ -45,6 +46,7 @@ public class PluginManagerServiceImpl implements PluginManagerService {
             throw new ArkException(String.format("duplicate plugin: %s exists.",
                 plugin.getPluginName()));
         }
+        ClassloaderCacheVersion.increment();
     }
 
     @Override
@@ -19,9 +19,12 @@ package com.alipay.sofa.ark.container.service.classloader;
 import com.alipay.sofa.ark.common.util.StringUtils;
 import com.alipay.sofa.ark.container.BaseTest;
 import com.alipay.sofa.ark.container.testdata.ITest;
+import com.alipay.sofa.ark.container.testdata.impl.TestObjectA;
+import com.alipay.sofa.ark.container.testdata.impl.TestObjectB;
 import com.alipay.sofa.ark.container.model.BizModel;
 import com.alipay.sofa.ark.container.model.PluginModel;
 import com.alipay.sofa.ark.container.service.ArkServiceContainerHolder;
+import com.alipay.sofa.ark.loader.jar.JarFile;
 import com.alipay.sofa.ark.spi.model.BizState;
 import com.alipay.sofa.ark.spi.service.biz.BizManagerService;
 import com.alipay.sofa.ark.spi.service.classloader.ClassloaderService;
@@ -33,9 +36,16 @@ import org.junit.Before;
 import org.junit.Test;
 import sun.misc.CompoundEnumeration;
 
+import java.io.File;
+import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
 import java.net.URL;
 import java.util.*;
+import java.util.jar.Attributes;
+import java.util.jar.JarOutputStream;
+import java.util.jar.Manifest;
+import java.util.zip.ZipEntry;
 
 /**
  * @author ruoshan
@@ -227,4 +237,181 @@ public class BizClassloaderTest extends BaseTest {
             Sets.newHashSet(Collections.list(enu1)));
 
     }
-}
\ No newline at end of file
+
+    @Test
+    public void testResourceCache() {
+        BizModel bizModel = new BizModel().setBizState(BizState.RESOLVED);
+        bizModel.setBizName("biz A").setBizVersion("1.0.0")
+            .setClassPath(new URL[] { classPathURL })
+            .setClassLoader(new BizClassLoader(bizModel.getIdentity(), bizModel.getClassPath()));
+        bizModel.setDenyImportResources(StringUtils.EMPTY_STRING);
+        bizModel.setDenyImportClasses(StringUtils.EMPTY_STRING);
+        bizModel.setDenyImportPackages(StringUtils.EMPTY_STRING);
+        bizManagerService.registerBiz(bizModel);
+
+        BizClassLoader bizClassLoader = (BizClassLoader) bizModel.getBizClassLoader();
+        bizClassLoader.resourceCache = new ResourceCache(16);
+        String name = "pluginA_export_resource1.xml";
+        String notExistName = "not_exist_resource.xml";
+        URL url = bizClassLoader.getResource(name);
+        Assert.assertNotNull(url);
+        for (int i = 0; i < 2; ++i) {
+            Assert.assertEquals(url, bizClassLoader.getResource(name));
+            Assert.assertNull(bizClassLoader.getResource(notExistName));
+        }
+        Assert.assertEquals(2, bizClassLoader.getResourceCacheMissCount());
+        Assert.assertEquals(3, bizClassLoader.getResourceCacheHitCount());
+        Assert.assertEquals(2, bizClassLoader.resourceCache.size());
+
+        // plugin change invalidates cached resources
+        pluginManagerService.registerPlugin(new PluginModel().setPluginName("plugin A"));
+        Assert.assertEquals(url, bizClassLoader.getResource(name));
+        Assert.assertEquals(3, bizClassLoader.getResourceCacheMissCount());
+
+        // entries resolved against a stale version are never served
+        ResourceCache resourceCache = new ResourceCache(16);
+        long loadVersion = ClassloaderCacheVersion.get();
+        resourceCache.put(name, url, loadVersion);
+        Assert.assertEquals(url, resourceCache.get(name)[0]);
+        ClassloaderCacheVersion.increment();
+        resourceCache.put(notExistName, null, loadVersion);
+        Assert.assertNull(resourceCache.get(name));
+        Assert.assertNull(resourceCache.get(notExistName));
+        Assert.assertEquals(0, resourceCache.size());
+
+        // disabled by default
+        Assert.assertFalse(new ResourceCache().isEnabled());
+    }
+
+    @Test
+    public void testNegativeClassCache() {
+        BizModel bizModel = new BizModel().setBizState(BizState.RESOLVED);
+        bizModel.setBizName("biz A").setBizVersion("1.0.0").setClassPath(new URL[] {})
+            .setClassLoader(new BizClassLoader(bizModel.getIdentity(), bizModel.getClassPath()));
+        bizModel.setDenyImportResources(StringUtils.EMPTY_STRING);
+        bizModel.setDenyImportClasses(StringUtils.EMPTY_STRING);
+        bizModel.setDenyImportPackages(StringUtils.EMPTY_STRING);
+        bizManagerService.registerBiz(bizModel);
+
+        BizClassLoader bizClassLoader = (BizClassLoader) bizModel.getBizClassLoader();
+        String className = "com.alipay.sofa.ark.container.testdata.NotExistClass";
+        for (int i = 0; i < 3; ++i) {
+            try {
+                bizClassLoader.loadClass(className);
+                Assert.fail();
+            } catch (ClassNotFoundException e) {
+                // expected
+            }
+        }
+        Assert.assertEquals(1, bizClassLoader.getNegativeClassCacheMissCount());
+        Assert.assertEquals(2, bizClassLoader.getNegativeClassCacheHitCount());
+        Assert.assertEquals(1, bizClassLoader.negativeClassCache.size());
+
+        // plugin change invalidates cached classes
+        pluginManagerService.registerPlugin(new PluginModel().setPluginName("plugin A"));
+        try {
+            bizClassLoader.loadClass(className);
+            Assert.fail();
+        } catch (ClassNotFoundException e) {
+            // expected
+        }
+        Assert.assertEquals(2, bizClassLoader.getNegativeClassCacheMissCount());
+        Assert.assertEquals(2, bizClassLoader.getNegativeClassCacheHitCount());
+    }
+
+    @Test
+    public void testLoadFromArkJarFile() throws Exception {
+        URL sampleBiz = BizClassloaderTest.class.getClassLoader().getResource("sample-biz.jar");
+        JarFile jarFile = new JarFile(new File(sampleBiz.getFile()));
+        BizModel bizModel = new BizModel().setBizState(BizState.RESOLVED);
+        bizModel.setBizName("biz A").setBizVersion("1.0.0")
+            .setClassPath(new URL[] { jarFile.getUrl() })
+            .setClassLoader(new BizClassLoader(bizModel.getIdentity(), bizModel.getClassPath()));
+        bizModel.setDenyImportResources(StringUtils.EMPTY_STRING);
+        bizModel.setDenyImportClasses(StringUtils.EMPTY_STRING);
+        bizModel.setDenyImportPackages(StringUtils.EMPTY_STRING);
+        bizManagerService.registerBiz(bizModel);
+
+        ClassLoader bizClassLoader = bizModel.getBizClassLoader();
+        Class<?> clazz = bizClassLoader
+            .loadClass("com.alipay.sofa.ark.sample.impl.SampleServiceImpl");
+        Assert.assertEquals(bizClassLoader, clazz.getClassLoader());
+        Assert.assertNotNull(clazz.getPackage());
+        Assert.assertEquals(jarFile.getUrl(), clazz.getProtectionDomain().getCodeSource()
+            .getLocation());
+
+        URL url = bizClassLoader.getResource("META-INF/spring/service.xml");
+        Assert.assertEquals(jarFile.getUrl() + "META-INF/spring/service.xml", url.toString());
+        Assert.assertNotNull(url.openStream());
+        Assert.assertTrue(bizClassLoader.getResources("META-INF/spring/service.xml")
+            .hasMoreElements());
+        Assert.assertNull(bizClassLoader.getResource("META-INF/spring/not-exist.xml"));
+    }
+
+    @Test
+    public void testSealedPackage() throws Exception {
+        File sealedJar = createJar("sealed.jar", true, ITest.class, TestObjectA.class);
+        File otherJar = createJar("other.jar", false, TestObjectB.class);
+        BizModel bizModel = new BizModel().setBizState(BizState.RESOLVED);
+        bizModel
+            .setBizName("biz A")
+            .setBizVersion("1.0.0")
+            .setClassPath(
+                new URL[] { new JarFile(sealedJar).getUrl(), new JarFile(otherJar).getUrl() })
+            .setClassLoader(new BizClassLoader(bizModel.getIdentity(), bizModel.getClassPath()));
+        bizModel.setDenyImportResources(StringUtils.EMPTY_STRING);
+        bizModel.setDenyImportClasses(StringUtils.EMPTY_STRING);
+        bizModel.setDenyImportPackages(StringUtils.EMPTY_STRING);
+        bizManagerService.registerBiz(bizModel);
+
+        ClassLoader bizClassLoader = bizModel.getBizClassLoader();
+        Class<?> clazz = bizClassLoader.loadClass(TestObjectA.class.getName());
+        Assert.assertEquals(bizClassLoader, clazz.getClassLoader());
+        Assert.assertTrue(clazz.getPackage().isSealed());
+        try {
+            bizClassLoader.loadClass(TestObjectB.class.getName());
+            Assert.fail();
+        } catch (SecurityException ex) {
+            Assert.assertTrue(ex.getMessage().contains("sealing violation"));
+        }
+    }
+
+    private File createJar(String name, boolean sealed, Class<?>... classes) throws IOException {
+        File file = new File(System.getProperty("java.io.tmpdir"), System.nanoTime() + "-" + name);
+        file.deleteOnExit();
+        Manifest manifest = new Manifest();
+        manifest.getMainAttributes().put(Attributes.Name.MANIFEST_VERSION, "1.0");
+        if (sealed) {
+            manifest.getMainAttributes().put(Attributes.Name.SEALED, "true");
+        }
+        JarOutputStream jos = new JarOutputStream(new FileOutputStream(file), manifest);
+        try {
+            for (Class<?> clazz : classes) {
+                String entryName = clazz.getName().replace('.', '/') + ".class";
+                jos.putNextEntry(new ZipEntry(entryName));
+                InputStream inputStream = clazz.getClassLoader().getResourceAsStream(entryName);
+                try {
+                    byte[] buffer = new byte[4096];
+                    int read;
+                    while ((read = inputStream.read(buffer)) != -1) {
+                        jos.write(buffer, 0, read);
+                    }
+                } finally {
+                    inputStream.close();
+                }
+                jos.closeEntry();
+            }
+        } finally {
+            jos.close();
+        }
+        return file;
+    }
+
+    @Test
+    public void testEncodePath() {
+        String name = "META-INF/spring/service.xml";
+        Assert.assertSame(name, AbstractClasspathClassloader.encodePath(name));
+        Assert.assertEquals("a%20b/c%25d/%E4%B8%AD.txt",
+            AbstractClasspathClassloader.encodePath("a b/c%d/\u4e2d.txt"));
+    }
+}
@@ -0,0 +1,156 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alipay.sofa.ark.container.service.classloader;
+
+import com.alipay.sofa.ark.common.util.StringUtils;
+import com.alipay.sofa.ark.container.BaseTest;
+import com.alipay.sofa.ark.container.model.BizModel;
+import com.alipay.sofa.ark.container.model.PluginModel;
+import com.alipay.sofa.ark.container.service.ArkServiceContainerHolder;
+import com.alipay.sofa.ark.container.testdata.ITest;
+import com.alipay.sofa.ark.loader.ExecutableArkBizJar;
+import com.alipay.sofa.ark.spi.archive.ExecutableArchive;
+import com.alipay.sofa.ark.spi.constant.Constants;
+import com.alipay.sofa.ark.spi.model.BizState;
+import com.alipay.sofa.ark.spi.service.biz.BizManagerService;
+import com.alipay.sofa.ark.spi.service.plugin.PluginManagerService;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.reflect.Method;
+import java.net.URL;
+import java.nio.file.Files;
+import java.util.HashSet;
+
+/**
+ * @author agent
+ * @since 0.6.0
+ */
+public class ClassPreloaderTest extends BaseTest {
+
+    private URL                  classPathURL = ClassPreloaderTest.class.getClassLoader()
+                                                  .getResource("");
+
+    private PluginManagerService pluginManagerService;
+
+    private BizManagerService    bizManagerService;
+
+    private ClassPreloader       classPreloader;
+
+    private ExecutableArchive    executableArchive;
+
+    private File                 preloadDirectory;
+
+    @Before
+    public void before() {
+        super.before();
+        pluginManagerService = ArkServiceContainerHolder.getContainer().getService(
+            PluginManagerService.class);
+        bizManagerService = ArkServiceContainerHolder.getContainer().getService(
+            BizManagerService.class);
+        classPreloader = ArkServiceContainerHolder.getContainer().getService(ClassPreloader.class);
+        executableArchive = new ExecutableArkBizJar(null, ClassPreloaderTest.class.getClassLoader()
+            .getResource("sample-biz.jar"));
+        try {
+            preloadDirectory = Files.createTempDirectory("class-preload").toFile();
+        } catch (IOException ex) {
+            throw new IllegalStateException(ex);
+        }
+        System.setProperty(Constants.CLASS_PRELOAD_ENABLE, "true");
+        System.setProperty(Constants.CLASS_PRELOAD_DIRECTORY, preloadDirectory.getAbsolutePath());
+    }
+
+    @After
+    public void after() {
+        System.clearProperty(Constants.CLASS_PRELOAD_ENABLE);
+        System.clearProperty(Constants.CLASS_PRELOAD_DIRECTORY);
+        super.after();
+    }
+
+    @Test
+    public void testRecord() throws Exception {
+        PluginModel plugin = registerPlugin();
+        BizModel bizModel = new BizModel().setBizState(BizState.RESOLVED);
+        bizModel.setBizName("biz A").setBizVersion("1.0.0").setClassPath(new URL[] {})
+            .setClassLoader(new BizClassLoader(bizModel.getIdentity(), bizModel.getClassPath()));
+        bizManagerService.registerBiz(bizModel);
+
+        plugin.getPluginClassLoader().loadClass(ITest.class.getName());
+        classPreloader.record(executableArchive);
+
+        File classListFile = classPreloader.getClassListFile(executableArchive);
+        Assert.assertEquals(preloadDirectory, classListFile.getParentFile());
+        Assert.assertEquals(
+            "plugin:plugin A\n" + ITest.class.getName() + "\nbiz:biz A:1.0.0\n",
+            new String(Files.readAllBytes(classListFile.toPath()), "UTF-8").replace(
+                System.getProperty("line.separator"), "\n"));
+
+        // recording is stopped once persisted
+        Assert.assertNull(((AbstractClasspathClassloader) plugin.getPluginClassLoader())
+            .stopRecordingDefinedClasses());
+    }
+
+    @Test
+    public void testPreload() throws Exception {
+        PluginModel plugin = registerPlugin();
+        writeClassList("plugin:plugin A\n" + ITest.class.getName() + "\nnot.exist.Class\n"
+                       + "biz:unknown:1.0.0\n" + ITest.class.getName() + "\n");
+        classPreloader.preload(executableArchive);
+
+        Method findLoadedClass = ClassLoader.class.getDeclaredMethod("findLoadedClass",
+            String.class);
+        findLoadedClass.setAccessible(true);
+        long deadline = System.currentTimeMillis() + 10000;
+        while (findLoadedClass.invoke(plugin.getPluginClassLoader(), ITest.class.getName()) == null) {
+            Assert.assertTrue("Class is not preloaded", System.currentTimeMillis() < deadline);
+            Thread.sleep(10);
+        }
+    }
+
+    @Test
+    public void testPreloadWithoutClassList() {
+        registerPlugin();
+        classPreloader.preload(executableArchive);
+        Assert.assertFalse(classPreloader.getClassListFile(executableArchive).exists());
+    }
+
+    private PluginModel registerPlugin() {
+        PluginModel plugin = new PluginModel();
+        plugin
+            .setPluginName("plugin A")
+            .setClassPath(new URL[] { classPathURL })
+            .setImportClasses(StringUtils.EMPTY_STRING)
+            .setImportPackages(StringUtils.EMPTY_STRING)
+            .setExportIndex(new HashSet<String>())
+            .setImportResources(StringUtils.EMPTY_STRING)
+            .setExportResources(StringUtils.EMPTY_STRING)
+            .setPluginClassLoader(
+                new PluginClassLoader(plugin.getPluginName(), plugin.getClassPath()));
+        pluginManagerService.registerPlugin(plugin);
+        return plugin;
+    }
+
+    private void writeClassList(String content) throws IOException {
+        Files.write(classPreloader.getClassListFile(executableArchive).toPath(),
+            content.getBytes("UTF-8"));
+    }
+
+}
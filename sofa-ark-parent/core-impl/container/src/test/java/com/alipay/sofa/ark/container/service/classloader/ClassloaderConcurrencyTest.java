@@ -18,14 +18,20 @@ package com.alipay.sofa.ark.container.service.classloader;
 
 import com.alipay.sofa.ark.common.thread.CommonThreadPool;
 import com.alipay.sofa.ark.container.BaseTest;
+import com.alipay.sofa.ark.container.testdata.ITest;
 import com.alipay.sofa.ark.container.testdata.classloader.ClassloaderTestClass;
+import com.alipay.sofa.ark.container.testdata.impl.TestObjectA;
+import com.alipay.sofa.ark.container.testdata.impl.TestObjectB;
+import com.alipay.sofa.ark.container.testdata.impl.TestObjectC;
 import org.junit.Assert;
 import org.junit.Test;
 
 import java.net.URL;
 import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.CyclicBarrier;
 import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
 
 /**
  * Test class load concurrency
@@ -78,4 +84,79 @@ public class ClassloaderConcurrencyTest extends BaseTest {
 
         Assert.assertTrue("should not get linkega error when load class", result.get());
     }
-}
\ No newline at end of file
+
+    @Test
+    public void testLoadClassWhileLoaderLocked() throws Exception {
+        final BizClassLoader bizClassLoader = new BizClassLoader("test:1.0",
+            new URL[] { classPathURL });
+        final AtomicReference<Class<?>> loadedClass = new AtomicReference<>();
+        Thread thread = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    loadedClass.set(bizClassLoader.loadClass(TestObjectA.class.getName()));
+                } catch (ClassNotFoundException e) {
+                    // ignore
+                }
+            }
+        });
+
+        // parallel capable classloader does not lock on itself when loading class
+        synchronized (bizClassLoader) {
+            thread.start();
+            thread.join(10000);
+        }
+        Assert.assertFalse(thread.isAlive());
+        Assert.assertEquals(bizClassLoader, loadedClass.get().getClassLoader());
+    }
+
+    @Test
+    public void testConcurrentLoadDifferentClasses() throws Exception {
+        final String[] classNames = new String[] { TestObjectA.class.getName(),
+                TestObjectB.class.getName(), TestObjectC.class.getName(), ITest.class.getName(),
+                ClassloaderTestClass.class.getName() };
+        final int threadCount = 16;
+        final int loaderCount = 20;
+        final BizClassLoader[] bizClassLoaders = new BizClassLoader[loaderCount];
+        for (int i = 0; i < loaderCount; i++) {
+            bizClassLoaders[i] = new BizClassLoader("test:" + i, new URL[] { classPathURL });
+        }
+
+        final CyclicBarrier barrier = new CyclicBarrier(threadCount);
+        final AtomicReference<Throwable> error = new AtomicReference<>();
+        Thread[] threads = new Thread[threadCount];
+        for (int t = 0; t < threadCount; t++) {
+            final int threadIndex = t;
+            threads[t] = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        barrier.await();
+                        for (int i = 0; i < loaderCount; i++) {
+                            for (int j = 0; j < classNames.length; j++) {
+                                // threads start from different classes to contend on each loader
+                                String className = classNames[(j + threadIndex) % classNames.length];
+                                Class<?> clazz = bizClassLoaders[i].loadClass(className, true);
+                                Assert.assertEquals(bizClassLoaders[i], clazz.getClassLoader());
+                            }
+                        }
+                    } catch (Throwable e) {
+                        error.compareAndSet(null, e);
+                    }
+                }
+            });
+            threads[t].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        Assert.assertNull(error.get());
+        for (int i = 0; i < loaderCount; i++) {
+            for (String className : classNames) {
+                Class<?> clazz = bizClassLoaders[i].loadClass(className);
+                Assert.assertEquals(bizClassLoaders[i], clazz.getClassLoader());
+            }
+        }
+    }
+}
@@ -31,7 +31,9 @@ import org.junit.Assert;
 import org.junit.Before;
 import org.junit.Test;
 
+import java.net.URL;
 import java.net.URLClassLoader;
+import java.util.Collections;
 
 /**
  *
@@ -93,6 +95,25 @@ public class ClassloaderServiceTest extends BaseTest {
 
     }
 
+    @Test
+    public void testIsJDKPackageClass() {
+        ClassloaderServiceImpl classloaderService = (ClassloaderServiceImpl) this.classloaderService;
+        Assert.assertTrue(classloaderService.isJDKPackageClass(String.class.getName()));
+        Assert.assertTrue(classloaderService.isJDKPackageClass("javax.sql.DataSource"));
+        Assert.assertTrue(classloaderService.isJDKPackageClass("java.lang.NotExist"));
+        Assert.assertFalse(classloaderService.isJDKPackageClass(ClassloaderServiceTest.class
+            .getName()));
+        Assert.assertFalse(classloaderService.isJDKPackageClass("NotExist"));
+
+        // packages of java agent jars keep the JDK delegation
+        URL agentJar = Test.class.getProtectionDomain().getCodeSource().getLocation();
+        JDKPackageIndex jdkPackageIndex = JDKPackageIndex.create(Collections.<URL> emptyList(),
+            new URL[] { agentJar });
+        if (jdkPackageIndex != null) {
+            Assert.assertTrue(jdkPackageIndex.contains(Test.class.getName()));
+        }
+    }
+
     @Test
     public void testArkClassloader() {
         ClassLoader arkClassloader = classloaderService.getArkClassloader();
@@ -150,4 +171,21 @@ public class ClassloaderServiceTest extends BaseTest {
         Assert.assertTrue(classloaderService.isClassInImport("mockPlugin", "a.b.c.e.f"));
 
     }
-}
\ No newline at end of file
+
+    @Test
+    public void testClassImportRulesRebuild() {
+        PluginModel plugin = new PluginModel().setPluginName("mockPlugin")
+            .setImportClasses("a.b.C").setImportPackages("a.c.*");
+        pluginManagerService.registerPlugin(plugin);
+
+        Assert.assertTrue(classloaderService.isClassInImport("mockPlugin", "a.b.C"));
+        Assert.assertTrue(classloaderService.isClassInImport("mockPlugin", "a.c.d.E"));
+        Assert.assertFalse(classloaderService.isClassInImport("mockPlugin", "a.d.E"));
+        Assert.assertFalse(classloaderService.isClassInImport("mockPlugin", "E"));
+
+        plugin.setImportClasses(null).setImportPackages("a.d");
+        Assert.assertFalse(classloaderService.isClassInImport("mockPlugin", "a.b.C"));
+        Assert.assertFalse(classloaderService.isClassInImport("mockPlugin", "a.c.d.E"));
+        Assert.assertTrue(classloaderService.isClassInImport("mockPlugin", "a.d.E"));
+    }
+}
@@ -0,0 +1,57 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alipay.sofa.ark.container.service.classloader;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.util.Arrays;
+
+/**
+ * @author agent
+ * @since 0.6.0
+ */
+public class ExportClassIndexTest {
+
+    @Test
+    public void testFindClassloader() {
+        ClassLoader pluginA = new URLClassLoader(new URL[0], null);
+        ClassLoader pluginB = new URLClassLoader(new URL[0], null);
+        ExportClassIndex exportClassIndex = new ExportClassIndex.Builder()
+            .addExportClasses(pluginA, Arrays.asList("a.b.C", "a.b.D", "a.b.c.E", "F", "a.b.C"))
+            .addExportClasses(pluginB, Arrays.asList("a.b.D", "a.b.G", "a.H")).build();
+
+        Assert.assertEquals(7, exportClassIndex.getClassCount());
+        Assert.assertEquals(4, exportClassIndex.getPackageCount());
+
+        Assert.assertEquals(pluginA, exportClassIndex.findClassloader("a.b.C"));
+        Assert.assertEquals(pluginA, exportClassIndex.findClassloader("a.b.D"));
+        Assert.assertEquals(pluginA, exportClassIndex.findClassloader("a.b.c.E"));
+        Assert.assertEquals(pluginA, exportClassIndex.findClassloader("F"));
+        Assert.assertEquals(pluginB, exportClassIndex.findClassloader("a.b.G"));
+        Assert.assertEquals(pluginB, exportClassIndex.findClassloader("a.H"));
+
+        Assert.assertNull(exportClassIndex.findClassloader("a.b.Cc"));
+        Assert.assertNull(exportClassIndex.findClassloader("a.b.c"));
+        Assert.assertNull(exportClassIndex.findClassloader("a.b.c.C"));
+        Assert.assertNull(exportClassIndex.findClassloader("G"));
+        Assert.assertNull(exportClassIndex.findClassloader("b.C"));
+        Assert.assertNull(ExportClassIndex.EMPTY.findClassloader("a.b.C"));
+    }
+}
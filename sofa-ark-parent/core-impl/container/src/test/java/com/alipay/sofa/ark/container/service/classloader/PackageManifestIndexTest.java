@@ -0,0 +1,135 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alipay.sofa.ark.container.service.classloader;
+
+import com.alipay.sofa.ark.container.service.classloader.PackageManifestIndex.PackageSource;
+import com.alipay.sofa.ark.loader.jar.JarEntryLocationIndex;
+import com.alipay.sofa.ark.loader.jar.JarFile;
+import org.junit.AfterClass;
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.net.URL;
+import java.util.jar.Attributes;
+import java.util.jar.JarOutputStream;
+import java.util.jar.Manifest;
+import java.util.zip.CRC32;
+import java.util.zip.ZipEntry;
+
+/**
+ * @author agent
+ * @since 0.6.0
+ */
+public class PackageManifestIndexTest {
+
+    private static final int JAR_COUNT = 300;
+
+    private static File      fatJar;
+
+    private static JarFile   jarFile;
+
+    private static URL[]     urls;
+
+    @BeforeClass
+    public static void setUp() throws IOException {
+        fatJar = File.createTempFile("package-manifest-index", ".jar");
+        JarOutputStream jos = new JarOutputStream(new FileOutputStream(fatJar));
+        try {
+            jos.putNextEntry(new ZipEntry("lib/"));
+            for (int i = 0; i < JAR_COUNT; i++) {
+                ZipEntry entry = new ZipEntry("lib/jar-" + i + ".jar");
+                byte[] content = createJar(i);
+                CRC32 crc = new CRC32();
+                crc.update(content);
+                entry.setMethod(ZipEntry.STORED);
+                entry.setSize(content.length);
+                entry.setCrc(crc.getValue());
+                jos.putNextEntry(entry);
+                jos.write(content);
+            }
+        } finally {
+            jos.close();
+        }
+        jarFile = new JarFile(fatJar);
+        urls = new URL[JAR_COUNT];
+        for (int i = 0; i < JAR_COUNT; i++) {
+            urls[i] = jarFile.getNestedJarFile(jarFile.getJarEntry("lib/jar-" + i + ".jar"))
+                .getUrl();
+        }
+    }
+
+    @AfterClass
+    public static void tearDown() throws IOException {
+        jarFile.close();
+        fatJar.delete();
+    }
+
+    /**
+     * every jar has its own package {@code pkg<i>}, jars 100 and 200 both declare package
+     * {@code shared} but only jar 200 contains {@code shared.A}
+     */
+    private static byte[] createJar(int index) throws IOException {
+        Manifest manifest = new Manifest();
+        manifest.getMainAttributes().put(Attributes.Name.MANIFEST_VERSION, "1.0");
+        manifest.getMainAttributes().put(Attributes.Name.IMPLEMENTATION_VERSION,
+            String.valueOf(index));
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        JarOutputStream jos = new JarOutputStream(outputStream, manifest);
+        try {
+            jos.putNextEntry(new ZipEntry("pkg" + index + "/"));
+            jos.putNextEntry(new ZipEntry("pkg" + index + "/C.class"));
+            if (index == 100 || index == 200) {
+                jos.putNextEntry(new ZipEntry("shared/"));
+            }
+            if (index == 200) {
+                jos.putNextEntry(new ZipEntry("shared/A.class"));
+            }
+        } finally {
+            jos.close();
+        }
+        return outputStream.toByteArray();
+    }
+
+    @Test
+    public void testGetPackageSourceWithLocationIndex() {
+        assertPackageSources(new PackageManifestIndex(urls, JarEntryLocationIndex.create(urls)));
+    }
+
+    @Test
+    public void testGetPackageSourceWithoutLocationIndex() {
+        assertPackageSources(new PackageManifestIndex(urls, null));
+    }
+
+    private void assertPackageSources(PackageManifestIndex index) {
+        for (int i = 0; i < JAR_COUNT; i += 7) {
+            PackageSource source = index.getPackageSource("pkg" + i + ".C", "pkg" + i);
+            Assert.assertEquals(urls[i], source.getUrl());
+            Assert.assertEquals(String.valueOf(i), source.getManifest().getMainAttributes()
+                .getValue("Implementation-Version"));
+        }
+        Assert.assertEquals(urls[200], index.getPackageSource("shared.A", "shared").getUrl());
+        Assert.assertNull(index.getPackageSource("shared.B", "shared"));
+        Assert.assertNull(index.getPackageSource("pkg1.NotExist", "pkg1"));
+        Assert.assertNull(index.getPackageSource("not.exist.C", "not.exist"));
+    }
+
+}
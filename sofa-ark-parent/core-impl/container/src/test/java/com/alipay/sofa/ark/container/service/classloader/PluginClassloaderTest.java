@@ -241,8 +241,9 @@ public class PluginClassloaderTest extends BaseTest {
         classloaderService.prepareExportClassAndResourceCache();
         pluginDeployService.deploy();
 
+        // exporting plugins share the same classpath, so the same url is returned only once
         Enumeration<URL> urlEnumeration = pluginD.getPluginClassLoader().getResources(resourceName);
-        Assert.assertEquals(3, Collections.list(urlEnumeration).size());
+        Assert.assertEquals(1, Collections.list(urlEnumeration).size());
 
         List<ClassLoader> classLoaders = classloaderService
             .findExportResourceClassloadersInOrder(resourceName);
@@ -0,0 +1,96 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alipay.sofa.ark.container.service.classloader;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.net.URL;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+/**
+ * @author agent
+ * @since 0.6.0
+ */
+public class ResourcesEnumerationTest {
+
+    @Test
+    public void testLazyAndDistinct() throws Exception {
+        final URL a = new URL("jar:file:/tmp/a.jar!/META-INF/spring.factories");
+        final URL b = new URL("jar:file:/tmp/b.jar!/META-INF/spring.factories");
+        final List<List<URL>> tiers = Arrays.asList(Collections.<URL> emptyList(),
+            Arrays.asList(a, a), null, Arrays.asList(new URL(a.toExternalForm()), b),
+            Collections.singletonList(b));
+        final int[] resolvedTiers = new int[1];
+        ResourcesEnumeration enumeration = new ResourcesEnumeration() {
+            @Override
+            protected Enumeration<URL> getTier(int index) throws IOException {
+                resolvedTiers[0] = index + 1;
+                if (index >= tiers.size()) {
+                    return null;
+                }
+                if (tiers.get(index) == null) {
+                    throw new IOException("broken tier");
+                }
+                return Collections.enumeration(tiers.get(index));
+            }
+        };
+
+        Assert.assertEquals(0, resolvedTiers[0]);
+        Assert.assertEquals(a, enumeration.nextElement());
+        Assert.assertEquals(2, resolvedTiers[0]);
+        Assert.assertEquals(b, enumeration.nextElement());
+        Assert.assertEquals(4, resolvedTiers[0]);
+        Assert.assertFalse(enumeration.hasMoreElements());
+        Assert.assertEquals(6, resolvedTiers[0]);
+        try {
+            enumeration.nextElement();
+            Assert.fail();
+        } catch (NoSuchElementException e) {
+            // expected
+        }
+    }
+
+    @Test
+    public void testHotResourcesCache() throws Exception {
+        HotResourcesCache cache = new HotResourcesCache();
+        Assert.assertTrue(cache.isHot("META-INF/spring.factories"));
+        Assert.assertFalse(cache.isHot("META-INF/MANIFEST.MF"));
+
+        List<URL> urls = Collections.singletonList(new URL("file:/tmp/spring.factories"));
+        cache.put("META-INF/spring.factories", urls, ClassloaderCacheVersion.get());
+        Assert.assertEquals(urls, cache.get("META-INF/spring.factories"));
+        Assert.assertEquals(1, cache.getHitCount());
+
+        ClassloaderCacheVersion.increment();
+        Assert.assertNull(cache.get("META-INF/spring.factories"));
+        Assert.assertEquals(1, cache.getMissCount());
+
+        // entries resolved against a stale version are never served
+        long staleVersion = ClassloaderCacheVersion.get();
+        ClassloaderCacheVersion.increment();
+        cache.put("META-INF/spring.factories", urls, staleVersion);
+        Assert.assertNull(cache.get("META-INF/spring.factories"));
+        Assert.assertEquals(2, cache.getMissCount());
+    }
+
+}
@@ -0,0 +1,179 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alipay.sofa.ark.common.util;
+
+import java.util.AbstractSet;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+/**
+ * An immutable set of strings which keeps all elements sorted and packed into one
+ * array, used to hold large name lists such as plugin export index with a small
+ * memory footprint. Elements are packed one byte per char when all chars are in
+ * ISO-8859-1, which is the common case for class names. Lookup is a binary search
+ * and does not allocate.
+ *
+ * @author agent
+ * @since 0.6.0
+ */
+public class CompactStringSet extends AbstractSet<String> {
+
+    /* packed elements when all chars fit in one byte */
+    private final byte[] bytes;
+
+    /* packed elements otherwise */
+    private final String chars;
+
+    private final int[]  offsets;
+
+    public CompactStringSet(Collection<String> elements) {
+        List<String> sorted = new ArrayList<>(elements);
+        Collections.sort(sorted);
+        StringBuilder sb = new StringBuilder();
+        int[] offsets = new int[sorted.size() + 1];
+        int count = 0;
+        for (String element : sorted) {
+            if (count > 0 && element.length() == offsets[count] - offsets[count - 1]
+                && compare(element, 0, sb, offsets[count - 1], offsets[count]) == 0) {
+                continue;
+            }
+            sb.append(element);
+            offsets[++count] = sb.length();
+        }
+        boolean latin1 = true;
+        for (int i = 0; i < sb.length() && latin1; ++i) {
+            latin1 = sb.charAt(i) <= 0xFF;
+        }
+        if (latin1) {
+            this.bytes = new byte[sb.length()];
+            for (int i = 0; i < sb.length(); ++i) {
+                this.bytes[i] = (byte) sb.charAt(i);
+            }
+            this.chars = null;
+        } else {
+            this.bytes = null;
+            this.chars = sb.toString();
+        }
+        this.offsets = count + 1 == offsets.length ? offsets : Arrays.copyOf(offsets, count + 1);
+    }
+
+    @Override
+    public boolean contains(Object o) {
+        return o instanceof String && contains((String) o, 0);
+    }
+
+    /**
+     * Whether the substring of str starting at offset is contained in this set
+     * @param str string
+     * @param offset start index of the substring
+     * @return whether substring is contained
+     */
+    public boolean contains(String str, int offset) {
+        int low = 0;
+        int high = offsets.length - 2;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            int cmp = compare(str, offset, offsets[mid], offsets[mid + 1]);
+            if (cmp > 0) {
+                low = mid + 1;
+            } else if (cmp < 0) {
+                high = mid - 1;
+            } else {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public Iterator<String> iterator() {
+        return new Iterator<String>() {
+            private int index = 0;
+
+            @Override
+            public boolean hasNext() {
+                return index < size();
+            }
+
+            @Override
+            public String next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                String element = elementAt(index);
+                index++;
+                return element;
+            }
+
+            @Override
+            public void remove() {
+                throw new UnsupportedOperationException();
+            }
+        };
+    }
+
+    @Override
+    public int size() {
+        return offsets.length - 1;
+    }
+
+    private String elementAt(int index) {
+        if (bytes != null) {
+            char[] element = new char[offsets[index + 1] - offsets[index]];
+            for (int i = 0; i < element.length; ++i) {
+                element[i] = (char) (bytes[offsets[index] + i] & 0xFF);
+            }
+            return new String(element);
+        }
+        return chars.substring(offsets[index], offsets[index + 1]);
+    }
+
+    private int compare(String str, int start, int charsStart, int charsEnd) {
+        int len1 = str.length() - start;
+        int len2 = charsEnd - charsStart;
+        int min = Math.min(len1, len2);
+        for (int i = 0; i < min; ++i) {
+            char c1 = str.charAt(start + i);
+            char c2 = bytes != null ? (char) (bytes[charsStart + i] & 0xFF) : chars
+                .charAt(charsStart + i);
+            if (c1 != c2) {
+                return c1 - c2;
+            }
+        }
+        return len1 - len2;
+    }
+
+    private static int compare(String str, int start, CharSequence chars, int charsStart,
+                               int charsEnd) {
+        int len1 = str.length() - start;
+        int len2 = charsEnd - charsStart;
+        int min = Math.min(len1, len2);
+        for (int i = 0; i < min; ++i) {
+            char c1 = str.charAt(start + i);
+            char c2 = chars.charAt(charsStart + i);
+            if (c1 != c2) {
+                return c1 - c2;
+            }
+        }
+        return len1 - len2;
+    }
+}
@@ -0,0 +1,85 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alipay.sofa.ark.common.util;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A counter for hot paths, such as cache hits during class loading. Increments go to a
+ * single value until two threads collide on it, from then on each thread increments one
+ * of several cells, padded apart so that they do not share a cache line. Reading the
+ * count sums all cells, it is exact once concurrent increments are done.
+ * <p>
+ * A lightweight replacement of {@code java.util.concurrent.atomic.LongAdder}, which is
+ * not available on Java 7.
+ *
+ * @author agent
+ * @since 0.6.0
+ */
+public class StripedCounter {
+
+    /* longs per cell, 64 bytes apart */
+    private static final int         PADDING = 8;
+
+    private static final int         STRIPES = stripes();
+
+    private final AtomicLong         base    = new AtomicLong();
+
+    private volatile AtomicLongArray cells;
+
+    public void increment() {
+        AtomicLongArray cells = this.cells;
+        if (cells == null) {
+            long value = base.get();
+            if (base.compareAndSet(value, value + 1)) {
+                return;
+            }
+            cells = inflate();
+        }
+        int hash = Thread.currentThread().hashCode();
+        hash ^= (hash >>> 16);
+        cells.getAndIncrement((hash & (STRIPES - 1)) * PADDING);
+    }
+
+    public long get() {
+        long sum = base.get();
+        AtomicLongArray cells = this.cells;
+        if (cells != null) {
+            for (int i = 0; i < cells.length(); i += PADDING) {
+                sum += cells.get(i);
+            }
+        }
+        return sum;
+    }
+
+    private synchronized AtomicLongArray inflate() {
+        if (this.cells == null) {
+            this.cells = new AtomicLongArray(STRIPES * PADDING);
+        }
+        return this.cells;
+    }
+
+    private static int stripes() {
+        int stripes = 1;
+        while (stripes < Runtime.getRuntime().availableProcessors() && stripes < 64) {
+            stripes <<= 1;
+        }
+        return stripes;
+    }
+
+}
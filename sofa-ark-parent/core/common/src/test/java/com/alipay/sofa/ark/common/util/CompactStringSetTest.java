@@ -0,0 +1,57 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alipay.sofa.ark.common.util;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * @author agent
+ * @since 0.6.0
+ */
+public class CompactStringSetTest {
+
+    @Test
+    public void testCompactStringSet() {
+        CompactStringSet set = new CompactStringSet(Arrays.asList("b.C", "a.B", "b.C", "a.Bc", "c"));
+        Assert.assertEquals(4, set.size());
+        Assert.assertTrue(set.contains("a.B"));
+        Assert.assertTrue(set.contains("a.Bc"));
+        Assert.assertTrue(set.contains("b.C"));
+        Assert.assertTrue(set.contains("c"));
+        Assert.assertFalse(set.contains("a"));
+        Assert.assertFalse(set.contains("b.Cd"));
+        Assert.assertFalse(set.contains(1));
+        Assert.assertTrue(set.contains("x.a.B", 2));
+        Assert.assertFalse(set.contains("x.a.", 2));
+
+        List<String> elements = new ArrayList<>(set);
+        Assert.assertEquals(Arrays.asList("a.B", "a.Bc", "b.C", "c"), elements);
+        Assert.assertTrue(new CompactStringSet(Collections.<String> emptyList()).isEmpty());
+
+        CompactStringSet unicodeSet = new CompactStringSet(Arrays.asList("a.\u4e2d", "a.B"));
+        Assert.assertTrue(unicodeSet.contains("a.\u4e2d"));
+        Assert.assertTrue(unicodeSet.contains("a.B"));
+        Assert.assertFalse(unicodeSet.contains("a.\u4e2e"));
+        Assert.assertEquals(Arrays.asList("a.B", "a.\u4e2d"), new ArrayList<>(unicodeSet));
+    }
+}
@@ -64,4 +64,13 @@ public abstract class AbstractArchive implements Archive {
         }
         return false;
     }
+
+    public boolean isEntryExist(final String entryName) {
+        return isEntryExist(new EntryFilter() {
+            @Override
+            public boolean matches(Entry entry) {
+                return !entry.isDirectory() && entry.getName().equals(entryName);
+            }
+        });
+    }
 }
\ No newline at end of file
@@ -53,4 +53,4 @@ public interface PluginArchive extends Archive {
      */
     boolean isEntryExist(EntryFilter filter);
 
-}
\ No newline at end of file
+}
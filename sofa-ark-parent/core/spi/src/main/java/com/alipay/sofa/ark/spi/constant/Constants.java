@@ -96,4 +96,55 @@ public class Constants {
     public final static String SPRING_BOOT_ENDPOINTS_JMX_ENABLED     = "endpoints.jmx.enabled";
     public final static String LOG4J_IGNORE_TCL                      = "log4j.ignoreTCL";
 
+    /**
+     * Classloader Cache
+     */
+    public final static String NEGATIVE_CLASS_CACHE_SIZE             = "sofa.ark.classloader.negative.cache.size";
+    public final static int    DEFAULT_NEGATIVE_CLASS_CACHE_SIZE     = 10000;
+    public final static String RESOURCE_CACHE_ENABLE                 = "sofa.ark.classloader.resource.cache.enable";
+    public final static String RESOURCE_CACHE_SIZE                   = "sofa.ark.classloader.resource.cache.size";
+    public final static int    DEFAULT_RESOURCE_CACHE_SIZE           = 10000;
+    public final static String HOT_RESOURCES_CACHE_NAMES             = "sofa.ark.classloader.hot.resources";
+    public final static String DEFAULT_HOT_RESOURCES_CACHE_NAMES     = "META-INF/spring.factories,META-INF/spring.handlers,META-INF/spring.schemas";
+
+    /**
+     * Jar File Access
+     */
+    public final static String ARK_JAR_MMAP_ENABLE                   = "sofa.ark.jar.mmap.enable";
+    public final static String ARK_JAR_ENTRY_CACHE_SIZE              = "sofa.ark.jar.entry.cache.size";
+    public final static int    DEFAULT_ARK_JAR_ENTRY_CACHE_SIZE      = 256;
+    public final static String ARK_JAR_INDEX_ENABLE                  = "sofa.ark.jar.index.enable";
+    public final static String ARK_JAR_INDEX_DIRECTORY               = "sofa.ark.jar.index.dir";
+    public final static String ARCHIVE_PARALLEL_OPEN_ENABLE          = "sofa.ark.archive.parallel.open.enable";
+    public final static String ARCHIVE_PARALLEL_OPEN_THREADS         = "sofa.ark.archive.parallel.open.threads";
+    public final static String ARK_JAR_ROOT_CACHE_SIZE               = "sofa.ark.jar.root.cache.size";
+    public final static int    DEFAULT_ARK_JAR_ROOT_CACHE_SIZE       = 64;
+
+    /**
+     * Class Data Sharing, based on dynamic CDS archive of JDK 13+
+     */
+    public final static String ARK_CDS_MODE                          = "sofa.ark.cds.mode";
+    public final static String ARK_CDS_MODE_DUMP                     = "dump";
+    public final static String ARK_CDS_MODE_SHARE                    = "share";
+    public final static String ARK_CDS_DIRECTORY                     = "sofa.ark.cds.dir";
+
+    /**
+     * Unpack cache of nested libraries marked UNPACK, size in megabytes
+     */
+    public final static String ARK_UNPACK_DIRECTORY                  = "sofa.ark.unpack.dir";
+    public final static String ARK_UNPACK_CACHE_SIZE                 = "sofa.ark.unpack.cache.size";
+    public final static long   DEFAULT_ARK_UNPACK_CACHE_SIZE         = 1024;
+
+    /**
+     * Exploded mode, every nested jar with a SHA-1 recorded at package time is read from
+     * the unpack cache
+     */
+    public final static String ARK_EXPLODED_MODE_ENABLE              = "sofa.ark.exploded.mode.enable";
+
+    /**
+     * Class Preload
+     */
+    public final static String CLASS_PRELOAD_ENABLE                  = "sofa.ark.class.preload.enable";
+    public final static String CLASS_PRELOAD_DIRECTORY               = "sofa.ark.class.preload.dir";
+
 }
\ No newline at end of file
@@ -29,6 +29,10 @@ import java.util.zip.ZipEntry;
 
 /**
  * Writes JAR content, ensuring valid directory entries are always create and duplicate
+ * <p>
+ * Zip64 records are written by the underlying {@link JarOutputStream} as soon as the jar
+ * has more than 65535 entries or an entry or offset exceeds 4GB, they are read back by
+ * the ark jar loader, so huge fat jars need not be split.
  *
  * @author Phillip Webb
  * @author Andy Wilkinson
@@ -148,9 +152,9 @@ public class JarWriter implements LoaderClassesWriter {
         File file = library.getFile();
         JarEntry entry = new JarEntry(destination + library.getName());
         entry.setTime(getNestedLibraryTime(file));
-        if (library.isUnpackRequired()) {
-            entry.setComment("UNPACK:" + FileUtils.sha1Hash(file));
-        }
+        // the SHA-1 addresses the library in the unpack cache of the launcher
+        entry.setComment((library.isUnpackRequired() ? "UNPACK:" : "SHA1:")
+                         + FileUtils.sha1Hash(file));
         new CrcAndSize(file).setupStoredEntry(entry);
         writeEntry(entry, new InputStreamEntryWriter(new FileInputStream(file), true));
     }